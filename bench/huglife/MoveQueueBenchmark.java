@@ -0,0 +1,63 @@
+package huglife;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Queue operations as a cycle uses them: take the front, put it back
+ *  at the end, and now and then take a cell out of the middle. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveQueueBenchmark {
+    @Param({"225", "65536", "4194304"})
+    int cells;
+
+    private MoveQueue q;
+    private int removed = -1;
+
+    @Setup
+    public void fill() {
+        q = new MoveQueue(cells);
+        for (int c = 0; c < cells; c += 2) {
+            q.add(c);
+        }
+        q.add(MoveQueue.SENTINEL);
+    }
+
+    @Benchmark
+    public int rotate() {
+        int c = q.remove();
+        q.add(c);
+        return c;
+    }
+
+    @Benchmark
+    public boolean removeAndReadd() {
+        int c = q.remove();
+        q.add(c);
+        // Like an attack: the victim leaves the line, another joins.
+        if (removed >= 0) {
+            q.add(removed);
+            removed = -1;
+            return false;
+        }
+        if (c != MoveQueue.SENTINEL && q.remove(c)) {
+            removed = c;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,76 @@
+package huglife;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cost of looking around: the public neighbors map, and asking a
+ *  creature for an action through the view or the map. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NeighborBenchmark {
+    @Param({"256"})
+    int size;
+
+    @Param({"OBJECT", "PACKED"})
+    Grid.Storage storage;
+
+    private Grid g;
+    /** Cells of creatures, visited round robin. */
+    private int[] creatures;
+    private int next;
+
+    @Setup
+    public void createWorld() {
+        g = Worlds.create(size, 0.5, "mixed", storage);
+        creatures = new int[g.population()];
+        int k = 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (g.getOccupant(x, y) instanceof Creature) {
+                    creatures[k++] = y * size + x;
+                }
+            }
+        }
+    }
+
+    private int nextCell() {
+        int c = creatures[next];
+        next = next + 1 == creatures.length ? 0 : next + 1;
+        return c;
+    }
+
+    @Benchmark
+    public void neighbors(Blackhole bh) {
+        int c = nextCell();
+        bh.consume(g.neighbors(c % size, c / size));
+    }
+
+    @Benchmark
+    public Action requestAction() {
+        int c = nextCell();
+        return g.requestAction(c % size, c / size);
+    }
+
+    @Benchmark
+    public Action requestActionThroughMap() {
+        int c = nextCell();
+        Creature creature = (Creature) g.getOccupant(c % size, c / size);
+        return creature.chooseAction(g.neighbors(c % size, c / size));
+    }
+}
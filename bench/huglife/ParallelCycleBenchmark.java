@@ -0,0 +1,56 @@
+package huglife;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cycle throughput of the TileParallelEngine on large worlds. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelCycleBenchmark {
+    @Param({"256", "2048"})
+    int size;
+
+    @Param({"1", "4"})
+    int threads;
+
+    private Grid g;
+    private TileParallelEngine engine;
+
+    @Setup(Level.Trial)
+    public void createEngine() {
+        engine = new TileParallelEngine(threads);
+    }
+
+    @Setup(Level.Iteration)
+    public void createWorld() {
+        g = Worlds.create(size, 0.3, "mixed", Grid.Storage.PACKED);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeEngine() {
+        engine.close();
+    }
+
+    @Benchmark
+    public long cycle() {
+        engine.cycle(g);
+        return g.tics();
+    }
+}
@@ -0,0 +1,69 @@
+package huglife;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cost of a frame with each way of drawing, after one cycle of
+ *  changes. Runs headless: StdDraw then draws into its images only. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    @Param({"15", "256"})
+    int size;
+
+    private Grid g;
+    private final SequentialEngine engine = new SequentialEngine();
+    private final RasterRenderer raster = new RasterRenderer(1, 0);
+    private Frame frame;
+
+    @Setup
+    public void createWorld() {
+        g = Worlds.create(size, 0.3, "mixed", Grid.Storage.OBJECT);
+        frame = new Frame(size);
+        // Like StdDrawRenderer, which leaves StdDraw deferring drawing
+        // until the next show.
+        StdDraw.show(0);
+    }
+
+    @Benchmark
+    public void drawWorld() {
+        g.drawWorld();
+    }
+
+    @Benchmark
+    public void cycleAndDrawChanges() {
+        engine.cycle(g);
+        g.drawChanges();
+    }
+
+    @Benchmark
+    public void cycleOnly() {
+        engine.cycle(g);
+    }
+
+    @Benchmark
+    public void raster() {
+        raster.render(g);
+    }
+
+    @Benchmark
+    public Frame captureFrame() {
+        frame.capture(g);
+        return frame;
+    }
+}
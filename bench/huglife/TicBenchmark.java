@@ -0,0 +1,61 @@
+package huglife;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Throughput of single tics and whole cycles, across world sizes,
+ *  densities, species mixes and storages.
+ *
+ *  Worlds are rebuilt for every iteration, so that each one starts
+ *  from the same population instead of whatever the last one left.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicBenchmark {
+    @Param({"15", "256", "2048"})
+    int size;
+
+    @Param({"0.1", "0.5"})
+    double density;
+
+    @Param({"mixed", "plip", "clorus", "sample"})
+    String mix;
+
+    @Param({"OBJECT", "PACKED"})
+    Grid.Storage storage;
+
+    private Grid g;
+    private final SequentialEngine engine = new SequentialEngine();
+
+    @Setup(Level.Iteration)
+    public void createWorld() {
+        g = Worlds.create(size, density, mix, storage);
+    }
+
+    @Benchmark
+    public boolean tic() {
+        return g.tic();
+    }
+
+    @Benchmark
+    public long cycle() {
+        engine.cycle(g);
+        return g.tics();
+    }
+}
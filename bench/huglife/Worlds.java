@@ -0,0 +1,40 @@
+package huglife;
+
+import creatures.Clorus;
+import creatures.Plip;
+
+/** Worlds for the benchmarks, reproducible from their parameters. */
+final class Worlds {
+    private Worlds() {
+    }
+
+    /** Returns a world of size N with about DENSITY of its cells taken
+     *  by creatures of MIX: "plip", "clorus", "sample" or "mixed". */
+    static Grid create(int n, double density, String mix, Grid.Storage storage) {
+        Grid g = new Grid(n, storage, 42);
+        SplitMix r = new SplitMix(n * 31L + mix.hashCode());
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                if (r.nextDouble() < density) {
+                    g.createCreature(x, y, creature(mix, r));
+                }
+            }
+        }
+        return g;
+    }
+
+    private static Creature creature(String mix, SplitMix r) {
+        String species = mix;
+        if (mix.equals("mixed")) {
+            // Mostly prey, as in the sample worlds.
+            double p = r.nextDouble();
+            species = p < 0.6 ? "plip" : p < 0.8 ? "clorus" : "sample";
+        }
+        return switch (species) {
+            case "plip" -> new Plip();
+            case "clorus" -> new Clorus(1);
+            case "sample" -> new SampleCreature();
+            default -> throw new IllegalArgumentException("Unknown mix " + mix);
+        };
+    }
+}
@@ -3,7 +3,6 @@ package creatures;
 import huglife.*;
 
 import java.awt.*;
-import java.util.List;
 import java.util.Map;
 
 public class Clorus extends Creature {
@@ -47,29 +46,39 @@ public class Clorus extends Creature {
 
     @Override
     public Action chooseAction(Map<Direction, Occupant> neighbors) {
+        return chooseAction(NeighborView.of(neighbors));
+    }
+
+    @Override
+    public Action chooseAction(NeighborView neighbors) {
 
-        List<Direction> empties = getNeighborsOfType(neighbors, Type.EMPTY);
-        if (empties.isEmpty()) {
-            return new Action(Action.Type.STAY);
+        int empties = neighbors.mask(Type.EMPTY);
+        if (DirectionSet.isEmpty(empties)) {
+            return Action.of(Action.Type.STAY);
         }
 
-        List<Direction> plips = getNeighborsOfType(neighbors, Type.PLIP);
-        if (!plips.isEmpty()) {
+        int plips = neighbors.mask(Type.PLIP);
+        if (!DirectionSet.isEmpty(plips)) {
             Direction toDir = HugLifeUtils.randomEntry(plips);
-            return new Action(Action.Type.ATTACK, toDir);
+            return Action.of(Action.Type.ATTACK, toDir);
         }
 
         if (energy >= 1.0){
             Direction toDir = HugLifeUtils.randomEntry(empties);
-            return new Action(Action.Type.REPLICATE, toDir);
+            return Action.of(Action.Type.REPLICATE, toDir);
         }
 
         Direction toDir = HugLifeUtils.randomEntry(empties);
-        return new Action(Action.Type.MOVE, toDir);
+        return Action.of(Action.Type.MOVE, toDir);
     }
 
     @Override
     public Color color() {
         return color;
     }
+
+    @Override
+    public int argb() {
+        return color.getRGB();
+    }
 }
\ No newline at end of file
@@ -3,7 +3,6 @@ package creatures;
 import huglife.*;
 
 import java.awt.*;
-import java.util.List;
 import java.util.Map;
 
 import static huglife.HugLifeUtils.randomEntry;
@@ -15,9 +14,10 @@ public class Plip extends Creature {
     public static final double ENERGY_MAX = 2.0;
     public static final double ENERGY_MIN = 0.0;
     public static final double MOVE_PROBABILITY = 0.25;
-    // colors
-    private final int r = 99;
-    private final int b = 76;
+    // colors: green follows energy, one ramp step per value of g
+    private static final ColorRamp COLORS = new ColorRamp(
+            new Color(99, GREEN_MIN, 76), new Color(99, GREEN_MAX, 76),
+            GREEN_MAX - GREEN_MIN + 1);
     private int g;
 
     /**
@@ -48,6 +48,11 @@ public class Plip extends Creature {
         g = (int)(GREEN_MIN + (GREEN_MAX - GREEN_MIN)/(ENERGY_MAX-ENERGY_MIN)*this.energy);
     }
 
+    @Override
+    protected void restoreEnergy(double energy) {
+        setEnergyAndColor(energy);
+    }
+
     @Override
     public void move() {
         this.setEnergyAndColor(energy - 0.15);
@@ -71,28 +76,37 @@ public class Plip extends Creature {
 
     @Override
     public Action chooseAction(Map<Direction, Occupant> neighbors) {
+        return chooseAction(NeighborView.of(neighbors));
+    }
 
-        List<Direction> empties = getNeighborsOfType(neighbors, Type.EMPTY);
-        if (empties.isEmpty()) {
-            return new Action(Action.Type.STAY);
+    @Override
+    public Action chooseAction(NeighborView neighbors) {
+
+        int empties = neighbors.mask(Type.EMPTY);
+        if (DirectionSet.isEmpty(empties)) {
+            return Action.of(Action.Type.STAY);
         }
 
         if (energy > 1.0) {
             Direction toDir = randomEntry(empties);
-            return new Action(Action.Type.REPLICATE, toDir);
+            return Action.of(Action.Type.REPLICATE, toDir);
         }
 
-        List<Direction> cloruses = getNeighborsOfType(neighbors, Type.CLORUS);
-        if (!cloruses.isEmpty() && HugLifeUtils.random() < MOVE_PROBABILITY) {
+        if (neighbors.count(Type.CLORUS) > 0 && HugLifeUtils.random() < MOVE_PROBABILITY) {
             Direction toDir = randomEntry(empties);
-            return new Action(Action.Type.MOVE, toDir);
+            return Action.of(Action.Type.MOVE, toDir);
         }
 
-        return new Action(Action.Type.STAY);
+        return Action.of(Action.Type.STAY);
     }
 
     @Override
     public Color color() {
-        return color(r, g, b);
+        return COLORS.color(g - GREEN_MIN);
+    }
+
+    @Override
+    public int argb() {
+        return COLORS.argb(g - GREEN_MIN);
     }
 }
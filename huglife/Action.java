@@ -38,6 +38,48 @@ public class Action {
     /** Actions without absolute position should use UNDEFINED position. */
     private static final int UNDEFINED = -126;
 
+    /** Shared instances of every action that has no absolute position,
+     *  indexed by type and then by direction (0 for STAY and DIE). */
+    private static final Action[][] INTERNED = intern();
+
+    private static Action[][] intern() {
+        Type[] types = Type.values();
+        Direction[] dirs = Direction.values();
+        Action[][] interned = new Action[types.length][];
+        for (Type t : types) {
+            if (involvesMovement(t)) {
+                interned[t.ordinal()] = new Action[dirs.length];
+                for (Direction d : dirs) {
+                    interned[t.ordinal()][d.ordinal()] = new Action(t, d);
+                }
+            } else {
+                interned[t.ordinal()] = new Action[] {new Action(t)};
+            }
+        }
+        return interned;
+    }
+
+    /** Returns the shared action of type T with no movement. Actions
+     *  are immutable, so creatures should prefer this to the constructor
+     *  to avoid creating garbage on every decision.
+     */
+    public static Action of(Type t) {
+        if (involvesMovement(t)) {
+            throw new IllegalArgumentException("Attempted to create action "
+                             + "of type " + t + " with no direction.");
+        }
+        return INTERNED[t.ordinal()][0];
+    }
+
+    /** Returns the shared action of type T and direction D. */
+    public static Action of(Type t, Direction d) {
+        if (!involvesMovement(t)) {
+            throw new IllegalArgumentException("Attempted to create action "
+                             + "of type " + t + " with a direction.");
+        }
+        return INTERNED[t.ordinal()][d.ordinal()];
+    }
+
     /** Create an action involving no movement. A little strange to throw
       *  a runtime error here if the ActionType is a movement based action,
       *  since in principle we can catch this at compile time. However, doing
@@ -93,6 +135,10 @@ public class Action {
 
     /** Returns whether the action AT is a move action. */
     public boolean isMoveAction(Type t) {
+        return involvesMovement(t);
+    }
+
+    private static boolean involvesMovement(Type t) {
         return ((t == Type.MOVE) || (t == Type.REPLICATE)
                  || (t == Type.ATTACK));
     }
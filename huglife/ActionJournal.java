@@ -0,0 +1,163 @@
+package huglife;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** Append-only record of every action taken in a Grid, from which
+ *  ReplayEngine rebuilds any cycle without asking creatures what to do.
+ *
+ *  The journal is a directory of segments. Each segment starts with a
+ *  keyframe, a Snapshot of the world, in NNNNNNNNNNNN.key, and goes on
+ *  with the actions taken from there in NNNNNNNNNNNN.log, where the
+ *  number is the cycle (counted from the start of the journal) at which
+ *  the keyframe was taken. Records are little endian:
+ *
+ *  <pre>
+ *  tag     byte  action type in bits 0-2, direction in bits 3-5 (7 for
+ *                an absolute target), or END_OF_CYCLE
+ *  cell    int   cell of the acting creature
+ *  target  int   target cell, only for absolute targets
+ *  energy  double energy of the creature afterwards, except for DIE
+ *  child   double energy of the newborn, only for REPLICATE
+ *  </pre>
+ *
+ *  Parallel cycles can't be journaled, as their actions have no order.
+ */
+public final class ActionJournal implements AutoCloseable {
+    static final byte END_OF_CYCLE = (byte) 0xFF;
+    static final int ABSOLUTE = 7;
+    static final String KEYFRAME = ".key";
+    static final String LOG = ".log";
+    private static final int BUFFER_BYTES = 1 << 16;
+    /** Longest record. */
+    private static final int RECORD_BYTES = 1 + 4 + 4 + 8 + 8;
+
+    private final Path dir;
+    private final Grid grid;
+    private final int cyclesPerSegment;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES)
+                                                .order(ByteOrder.LITTLE_ENDIAN);
+    private FileChannel log;
+    /** Cycles ended since the journal started. */
+    private long cycle;
+
+    private ActionJournal(Path dir, Grid grid, int cyclesPerSegment) {
+        this.dir = dir;
+        this.grid = grid;
+        this.cyclesPerSegment = cyclesPerSegment;
+    }
+
+    /** Starts journaling G into the directory DIR, which must be empty
+     *  or not exist, with a keyframe every CYCLESPERSEGMENT cycles. */
+    public static ActionJournal start(Path dir, Grid g, int cyclesPerSegment)
+            throws IOException {
+        if (cyclesPerSegment < 1) {
+            throw new IllegalArgumentException("Segments need at least one cycle.");
+        }
+        Files.createDirectories(dir);
+        try (var files = Files.list(dir)) {
+            if (files.findAny().isPresent()) {
+                throw new IOException(dir + " is not empty.");
+            }
+        }
+        ActionJournal j = new ActionJournal(dir, g, cyclesPerSegment);
+        j.startSegment();
+        g.setJournal(j);
+        return j;
+    }
+
+    /** Returns the name of the files of the segment starting at CYCLE. */
+    static String segment(long cycle, String suffix) {
+        return String.format("%012d%s", cycle, suffix);
+    }
+
+    private void startSegment() throws IOException {
+        if (log != null) {
+            flush();
+            log.close();
+        }
+        Snapshot.write(grid, dir.resolve(segment(cycle, KEYFRAME)));
+        log = FileChannel.open(dir.resolve(segment(cycle, LOG)),
+                               StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    /** Records that the creature in CELL took action A, aimed at cell
+     *  TARGET. Called by the grid after handling the action. */
+    void record(int cell, Action a, int target) {
+        if (buffer.remaining() < RECORD_BYTES) {
+            flush();
+        }
+        int n = grid.size();
+        int dir = a.dir != null ? a.dir.ordinal() : ABSOLUTE;
+        buffer.put((byte) (a.type.ordinal() | dir << 3));
+        buffer.putInt(cell);
+        boolean moves = a.type == Action.Type.MOVE || a.type == Action.Type.REPLICATE
+                        || a.type == Action.Type.ATTACK;
+        if (moves && a.dir == null) {
+            buffer.putInt(target);
+        }
+        switch (a.type) {
+            case MOVE, ATTACK -> buffer.putDouble(energy(target % n, target / n));
+            case STAY -> buffer.putDouble(energy(cell % n, cell / n));
+            case REPLICATE -> {
+                buffer.putDouble(energy(cell % n, cell / n));
+                buffer.putDouble(energy(target % n, target / n));
+            }
+            default -> {
+            }
+        }
+    }
+
+    private double energy(int x, int y) {
+        return ((Creature) grid.getOccupant(x, y)).energy();
+    }
+
+    /** Records the end of a cycle, starting a new segment when the
+     *  current one is full. */
+    void endCycle() {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(END_OF_CYCLE);
+        cycle += 1;
+        if (cycle % cyclesPerSegment == 0) {
+            try {
+                startSegment();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /** Returns the number of cycles journaled so far. */
+    public long cycles() {
+        return cycle;
+    }
+
+    /** Writes out buffered records. */
+    public void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                log.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    /** Stops journaling and writes out what is left. */
+    @Override
+    public void close() throws IOException {
+        grid.setJournal(null);
+        flush();
+        log.close();
+    }
+}
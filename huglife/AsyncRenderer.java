@@ -0,0 +1,99 @@
+package huglife;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/** Shows frames on a thread of its own, so that slow drawing never
+ *  holds up the simulation and vice versa.
+ *
+ *  render captures the world into a Frame and publishes it through a
+ *  TripleBuffer, without locks or waiting. The render thread draws the
+ *  newest frame each time it is done with the previous one; frames
+ *  that were replaced before it got to them are dropped.
+ *
+ *  If the sink throws, the render thread stops, and the exception is
+ *  thrown again by the next call to render or close.
+ */
+public class AsyncRenderer implements Renderer {
+    private final Consumer<Frame> sink;
+    private final Thread thread;
+    private volatile TripleBuffer<Frame> frames;
+    private volatile boolean closed;
+    /** What the sink threw, until it is thrown again. */
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    /** Creates a renderer that passes frames to SINK, on a new thread. */
+    public AsyncRenderer(Consumer<Frame> sink) {
+        this.sink = sink;
+        this.thread = new Thread(this::drawFrames, "HugLife renderer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void render(Grid g) {
+        rethrowFailure();
+        TripleBuffer<Frame> f = frames;
+        if (f == null) {
+            int n = g.size();
+            f = new TripleBuffer<>(new Frame(n), new Frame(n), new Frame(n));
+            frames = f;
+        } else if (f.back().size() != g.size()) {
+            throw new IllegalStateException("Can't render worlds of "
+                             + "different sizes with the same renderer.");
+        }
+        f.back().capture(g);
+        f.publish();
+        LockSupport.unpark(thread);
+    }
+
+    /** Loop of the render thread. */
+    private void drawFrames() {
+        try {
+            while (!closed) {
+                if (!drawNewest()) {
+                    LockSupport.park(this);
+                }
+            }
+            drawNewest();
+        } catch (RuntimeException e) {
+            failure.set(e);
+        }
+    }
+
+    /** Throws what the sink threw, if it did and that wasn't thrown yet. */
+    private void rethrowFailure() {
+        RuntimeException e = failure.getAndSet(null);
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    /** Draws the newest frame, if there is one. */
+    private boolean drawNewest() {
+        TripleBuffer<Frame> f = frames;
+        Frame frame = f == null ? null : f.take();
+        if (frame == null) {
+            return false;
+        }
+        sink.accept(frame);
+        return true;
+    }
+
+    /** Draws the last frame, if it wasn't drawn yet, and stops the
+     *  render thread. If interrupted while waiting for it, returns
+     *  early with the interrupt flag set. */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        rethrowFailure();
+    }
+}
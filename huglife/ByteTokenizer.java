@@ -0,0 +1,204 @@
+package huglife;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/** Reads whitespace separated words and ints straight from the bytes
+ *  of a ByteBuffer, typically a memory mapped file, for input too large
+ *  for In and its Scanner.
+ *
+ *  Ints are parsed digit by digit and words are compared byte by byte
+ *  with known ones, so reading creates no Strings. Input is taken to be
+ *  ASCII; every byte up to ' ' counts as whitespace.
+ *
+ *  Large inputs can be split at line breaks into chunks, each read by
+ *  a tokenizer of its own, e.g. on several threads.
+ */
+public final class ByteTokenizer {
+    private final ByteBuffer buf;
+    private final int limit;
+    private int pos;
+
+    /** Reads the bytes of BUF between its position and limit. */
+    public ByteTokenizer(ByteBuffer buf) {
+        this.buf = buf;
+        this.pos = buf.position();
+        this.limit = buf.limit();
+    }
+
+    /** Returns a tokenizer that reads FILE through a memory map. */
+    public static ByteTokenizer map(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map.");
+            }
+            return new ByteTokenizer(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    private static boolean isSpace(byte b) {
+        return b <= ' ' && b >= 0;
+    }
+
+    private void skipSpace() {
+        while (pos < limit && isSpace(buf.get(pos))) {
+            pos += 1;
+        }
+    }
+
+    /** Returns true if there are no more tokens. */
+    public boolean isEmpty() {
+        skipSpace();
+        return pos == limit;
+    }
+
+    /** Reads the next token as an int. */
+    public int readInt() {
+        long v = readLong();
+        if (v != (int) v) {
+            throw new InputMismatchException("Int out of range: " + v);
+        }
+        return (int) v;
+    }
+
+    /** Reads the next token as a long. */
+    public long readLong() {
+        skipSpace();
+        if (pos == limit) {
+            throw new NoSuchElementException("No more tokens.");
+        }
+        int start = pos;
+        boolean negative = buf.get(pos) == '-';
+        if (negative || buf.get(pos) == '+') {
+            pos += 1;
+        }
+        long v = 0;
+        int digits = 0;
+        while (pos < limit && !isSpace(buf.get(pos))) {
+            int d = buf.get(pos) - '0';
+            if (d < 0 || d > 9 || digits == 18) {
+                // Leave it to Long to parse or reject whatever this is.
+                pos = start;
+                return Long.parseLong(readString());
+            }
+            v = v * 10 + d;
+            digits += 1;
+            pos += 1;
+        }
+        if (digits == 0) {
+            throw new InputMismatchException("Not a number at byte " + start);
+        }
+        return negative ? -v : v;
+    }
+
+    /** Reads the next token as a double. Plain integers are parsed in
+     *  place; anything else goes through Double.parseDouble, which
+     *  needs a String. */
+    public double readDouble() {
+        skipSpace();
+        int start = pos;
+        int end = tokenEnd();
+        for (int i = start; i < end; i++) {
+            byte b = buf.get(i);
+            if ((b < '0' || b > '9') && b != '-' && b != '+') {
+                return Double.parseDouble(readString());
+            }
+        }
+        return readLong();
+    }
+
+    /** Reads the next token and returns its index in WORDS, or -1 if it
+     *  is none of them. WORDS should be ASCII bytes. */
+    public int readWord(byte[][] words) {
+        int w = peekWord(words);
+        pos = tokenEnd();
+        return w;
+    }
+
+    /** Same as readWord, but leaves the token to be read. */
+    public int peekWord(byte[][] words) {
+        skipSpace();
+        if (pos == limit) {
+            throw new NoSuchElementException("No more tokens.");
+        }
+        int start = pos;
+        int length = tokenEnd() - start;
+        for (int w = 0; w < words.length; w++) {
+            byte[] word = words[w];
+            if (word.length != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && buf.get(start + i) == word[i]) {
+                i += 1;
+            }
+            if (i == length) {
+                return w;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the end of the token at pos. */
+    private int tokenEnd() {
+        int end = pos;
+        while (end < limit && !isSpace(buf.get(end))) {
+            end += 1;
+        }
+        return end;
+    }
+
+    /** Reads the next token as a String. Unlike the other methods, this
+     *  creates garbage. */
+    public String readString() {
+        skipSpace();
+        if (pos == limit) {
+            throw new NoSuchElementException("No more tokens.");
+        }
+        StringBuilder s = new StringBuilder();
+        while (pos < limit && !isSpace(buf.get(pos))) {
+            s.append((char) buf.get(pos));
+            pos += 1;
+        }
+        return s.toString();
+    }
+
+    /** Reads all remaining tokens as ints. */
+    public int[] readAllInts() {
+        int[] values = new int[16];
+        int size = 0;
+        while (!isEmpty()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = readInt();
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    /** Splits what is left to read into tokenizers of roughly
+     *  CHUNKBYTES bytes each, breaking only after line breaks, so that
+     *  lines are never split. */
+    public List<ByteTokenizer> split(int chunkBytes) {
+        List<ByteTokenizer> chunks = new ArrayList<>();
+        int start = pos;
+        while (start < limit) {
+            int end = (int) Math.min((long) start + chunkBytes, limit);
+            while (end < limit && buf.get(end - 1) != '\n') {
+                end += 1;
+            }
+            chunks.add(new ByteTokenizer(buf.duplicate().limit(end).position(start)));
+            start = end;
+        }
+        pos = limit;
+        return chunks;
+    }
+}
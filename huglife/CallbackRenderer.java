@@ -0,0 +1,19 @@
+package huglife;
+
+import java.util.function.Consumer;
+
+/** Hands the world to a callback instead of drawing it, for example to
+ *  collect statistics or to feed some other display. */
+public class CallbackRenderer implements Renderer {
+    private final Consumer<Grid> callback;
+
+    /** Creates a renderer that passes every frame to CALLBACK. */
+    public CallbackRenderer(Consumer<Grid> callback) {
+        this.callback = callback;
+    }
+
+    @Override
+    public void render(Grid g) {
+        callback.accept(g);
+    }
+}
@@ -0,0 +1,209 @@
+package huglife;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/** Sparse store for huge worlds that are mostly empty.
+ *
+ *  The world is cut into chunks of 64 by 64 cells. A chunk is only
+ *  allocated once something is put into it, and released again when
+ *  its last occupant leaves, so memory grows with the occupied area
+ *  rather than with the size of the world. Chunks are found through a
+ *  hash map, with the last one used cached, as creatures mostly look
+ *  at cells near each other.
+ *
+ *  Not safe for use from several threads at once, so parallel engines
+ *  can't run on it.
+ */
+class ChunkedWorldStore implements WorldStore {
+    static final int SHIFT = 6;
+    static final int SIDE = 1 << SHIFT;
+    private static final int MASK = SIDE - 1;
+    private static final int NONE = -1;
+
+    /** Occupants of one chunk, null for empty cells. */
+    private static final class Chunk {
+        final Occupant[] cells = new Occupant[SIDE * SIDE];
+        int occupied;
+        int key;
+    }
+
+    private final int n;
+    private final int chunksPerRow;
+    /** Index into pool of every allocated chunk, by chunk key. */
+    private final IntIntMap index = new IntIntMap();
+    private Chunk[] pool = new Chunk[16];
+    /** Unused pool indices, as a stack. */
+    private int[] free = new int[16];
+    private int freeCount;
+    private int top;
+
+    private int lastKey = NONE;
+    private Chunk last;
+
+    /** Creates an empty store for a world of size N. */
+    ChunkedWorldStore(int n) {
+        this.n = n;
+        this.chunksPerRow = (n + MASK) >>> SHIFT;
+    }
+
+    /** Returns the number of chunks allocated. */
+    int chunks() {
+        return index.size();
+    }
+
+    private int keyOf(int cell) {
+        int x = cell % n;
+        int y = cell / n;
+        return (y >>> SHIFT) * chunksPerRow + (x >>> SHIFT);
+    }
+
+    private int local(int cell) {
+        int x = cell % n;
+        int y = cell / n;
+        return ((y & MASK) << SHIFT) | (x & MASK);
+    }
+
+    /** Returns the chunk of CELL, or null if it isn't allocated. */
+    private Chunk find(int cell) {
+        int key = keyOf(cell);
+        if (key == lastKey) {
+            return last;
+        }
+        int i = index.get(key, NONE);
+        if (i == NONE) {
+            return null;
+        }
+        lastKey = key;
+        last = pool[i];
+        return last;
+    }
+
+    private Chunk findOrAllocate(int cell) {
+        Chunk c = find(cell);
+        if (c != null) {
+            return c;
+        }
+        int i;
+        if (freeCount > 0) {
+            i = free[--freeCount];
+        } else {
+            if (top == pool.length) {
+                pool = Arrays.copyOf(pool, top * 2);
+                free = Arrays.copyOf(free, top * 2);
+            }
+            i = top++;
+        }
+        c = new Chunk();
+        c.key = keyOf(cell);
+        pool[i] = c;
+        index.put(c.key, i);
+        lastKey = c.key;
+        last = c;
+        return c;
+    }
+
+    private void release(Chunk c) {
+        int i = index.get(c.key, NONE);
+        index.remove(c.key);
+        pool[i] = null;
+        free[freeCount++] = i;
+        if (lastKey == c.key) {
+            lastKey = NONE;
+            last = null;
+        }
+    }
+
+    @Override
+    public Occupant get(int cell) {
+        Chunk c = find(cell);
+        if (c == null) {
+            return EMPTY;
+        }
+        Occupant o = c.cells[local(cell)];
+        return o == null ? EMPTY : o;
+    }
+
+    @Override
+    public Occupant.Type type(int cell) {
+        return get(cell).getType();
+    }
+
+    @Override
+    public double energy(int cell) {
+        Occupant o = get(cell);
+        return (o instanceof Creature) ? ((Creature) o).energy() : 0;
+    }
+
+    @Override
+    public void put(int cell, Occupant o) {
+        if (o.getType() == Occupant.Type.EMPTY) {
+            clear(cell);
+            return;
+        }
+        Chunk c = findOrAllocate(cell);
+        int i = local(cell);
+        if (c.cells[i] == null) {
+            c.occupied += 1;
+        }
+        c.cells[i] = o;
+    }
+
+    @Override
+    public void clear(int cell) {
+        Chunk c = find(cell);
+        if (c == null) {
+            return;
+        }
+        int i = local(cell);
+        if (c.cells[i] != null) {
+            c.cells[i] = null;
+            c.occupied -= 1;
+            if (c.occupied == 0) {
+                release(c);
+            }
+        }
+    }
+
+    @Override
+    public void move(int from, int to) {
+        // Put first, so that a creature moving within its chunk doesn't
+        // release and reallocate it.
+        put(to, get(from));
+        clear(from);
+    }
+
+    @Override
+    public void refresh(int cell) {
+    }
+
+    /** Walks the allocated chunks only, so costs grow with the occupied
+     *  area rather than with the size of the world. */
+    @Override
+    public void forEachOccupied(int cells, IntConsumer visitor) {
+        for (int p = 0; p < top; p++) {
+            Chunk c = pool[p];
+            if (c == null) {
+                continue;
+            }
+            int x0 = (c.key % chunksPerRow) << SHIFT;
+            int y0 = (c.key / chunksPerRow) << SHIFT;
+            for (int i = 0; i < c.cells.length; i++) {
+                if (c.cells[i] == null) {
+                    continue;
+                }
+                int x = x0 + (i & MASK);
+                int y = y0 + (i >>> SHIFT);
+                long cell = (long) y * n + x;
+                if (cell < cells) {
+                    visitor.accept((int) cell);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean concurrent() {
+        return false;
+    }
+}
@@ -0,0 +1,55 @@
+package huglife;
+
+import java.awt.*;
+
+/** A bounded run of colors, from one color to another in a fixed number
+ *  of steps, computed once.
+ *
+ *  Species whose color follows some state, like energy, quantize that
+ *  state to a step of their ramp. Drawing a step then costs an array
+ *  lookup instead of a new Color.
+ */
+public class ColorRamp {
+    private final Color[] colors;
+    private final int[] argbs;
+
+    /** Creates a ramp of STEPS colors, going linearly from FROM to TO
+     *  in every channel. */
+    public ColorRamp(Color from, Color to, int steps) {
+        if (steps < 2) {
+            throw new IllegalArgumentException("A ramp needs at least 2 "
+                             + "steps, got " + steps);
+        }
+        colors = new Color[steps];
+        argbs = new int[steps];
+        for (int i = 0; i < steps; i++) {
+            colors[i] = new Color(channel(from.getRed(), to.getRed(), i, steps),
+                                  channel(from.getGreen(), to.getGreen(), i, steps),
+                                  channel(from.getBlue(), to.getBlue(), i, steps));
+            argbs[i] = colors[i].getRGB();
+        }
+    }
+
+    private static int channel(int from, int to, int i, int steps) {
+        return from + (to - from) * i / (steps - 1);
+    }
+
+    /** Returns the number of steps. */
+    public int steps() {
+        return colors.length;
+    }
+
+    /** Returns the color of step I, clamped to the ends of the ramp. */
+    public Color color(int i) {
+        return colors[clamp(i)];
+    }
+
+    /** Returns the packed ARGB value of step I, clamped to the ends. */
+    public int argb(int i) {
+        return argbs[clamp(i)];
+    }
+
+    private int clamp(int i) {
+        return Math.max(0, Math.min(colors.length - 1, i));
+    }
+}
@@ -1,6 +1,5 @@
 package huglife;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -10,9 +9,22 @@ import java.util.Map;
  *  extend this class to populate your world.
  */
 public abstract class Creature extends Occupant {
+    /** All directions, in order. Direction.values() returns a new copy
+      * on every call. */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
     /** energy for this creature. */
     protected double energy;
 
+    /** Last parallel cycle in which this creature acted or was born,
+      * see Grid.act. */
+    int cycleStamp;
+
+    /** Key this creature adds to the hash of its Grid, which depends
+      * on where it is and on its energy when it was last hashed. */
+    long hashed;
+
+
     /** Creates a creature with the name N. The intention is that this
       * name should be shared between all creatures of the same type.
       */
@@ -39,24 +51,64 @@ public abstract class Creature extends Occupant {
      */
     public abstract Action chooseAction(Map<Direction, Occupant> neighbors);
 
+    /** Returns an action, given a view of the immediate NEIGHBORS that
+     *  answers questions without creating garbage. The view is reused,
+     *  so don't keep it around after returning.
+     *
+     *  By default this just hands a copy of the view to
+     *  chooseAction(Map). Override it to avoid the copy; the Grid calls
+     *  this version whenever a creature class overrides it.
+     */
+    public Action chooseAction(NeighborView neighbors) {
+        return chooseAction(neighbors.toMap());
+    }
+
+    /** Returns whatever state this creature has besides its type and
+     *  energy, packed into a long, for Snapshot. Override this together
+     *  with restoreState if there is any. */
+    protected long saveState() {
+        return 0;
+    }
+
+    /** Restores the STATE returned by saveState, after the creature
+     *  was recreated with its energy. */
+    protected void restoreState(long state) {
+    }
+
+    /** Sets the energy to ENERGY, when replaying a recorded run.
+     *  Override this if anything else follows the energy. */
+    protected void restoreEnergy(double energy) {
+        this.energy = energy;
+    }
+
     /** Returns the current energy. */
     public double energy() {
         return energy;
     }
 
-    /** Utility method that converts a Map<Direction, String> N to a list of all
-        neighbors of the specified TYPE. For example, if the map contains:
+    /** Utility method that converts a Map<Direction, String> N to the
+        DirectionSet of all neighbors of the specified TYPE. For example, if
+        the map contains:
         UP -> "sample", DOWN -> "empty", LEFT -> "empty", RIGHT -> "impassible"
-        and type is "empty", it will return a list containing Direction.DOWN and
-        Direction.LEFT */
-    public List<Direction> getNeighborsOfType(Map<Direction, Occupant> n,
-                                              Type type) {
-        List<Direction> list = new ArrayList<>();
-        for (Map.Entry<Direction, Occupant> entry : n.entrySet()) {
-            if (entry.getValue().getType() == type) {
-                list.add(entry.getKey());
+        and type is "empty", it will return a set containing Direction.DOWN
+        and Direction.LEFT */
+    public int neighborsOfType(Map<Direction, Occupant> n, Type type) {
+        int set = DirectionSet.NONE;
+        for (Direction d : DIRECTIONS) {
+            Occupant o = n.get(d);
+            if (o != null && o.getType() == type) {
+                set |= DirectionSet.of(d);
             }
         }
-        return list;
+        return set;
+    }
+
+    /** Same as neighborsOfType, but returns a list, for old code.
+
+        The list is in Direction order and unmodifiable: there are only
+        sixteen possible answers, so they are shared instead of built. */
+    public List<Direction> getNeighborsOfType(Map<Direction, Occupant> n,
+                                              Type type) {
+        return DirectionSet.toList(neighborsOfType(n, type));
     }
 }
@@ -0,0 +1,8 @@
+package huglife;
+
+/** Runs the creatures of a Grid through whole cycles. */
+public interface CycleEngine {
+
+    /** Lets every creature in G act once. */
+    void cycle(Grid g);
+}
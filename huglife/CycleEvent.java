@@ -0,0 +1,35 @@
+package huglife;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Flight recorder event spanning one cycle of a Grid, from the end of
+ *  the previous one. Off by default; see huglife.jfc. */
+@Name("huglife.Cycle")
+@Label("Cycle")
+@Category("HugLife")
+@Description("One cycle, in which every creature acted once")
+@Enabled(false)
+final class CycleEvent extends Event {
+    static final EventType TYPE = EventType.getEventType(CycleEvent.class);
+
+    @Label("Tics")
+    long tics;
+
+    @Label("Population")
+    @Description("Population at the end of the cycle")
+    int population;
+
+    @Label("Parallel")
+    @Description("Whether an engine ran the cycle on several threads")
+    boolean parallel;
+
+    @Label("Checksum")
+    @Description("Hash of the world at the end of the cycle, see Grid.cycleHash")
+    long checksum;
+}
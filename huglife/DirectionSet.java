@@ -0,0 +1,100 @@
+package huglife;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/** Sets of directions, packed into the low four bits of an int with bit
+ *  d.ordinal() set for every member d. An int is used directly rather
+ *  than wrapped in an object, so sets can be built, passed around and
+ *  queried without creating garbage.
+ *
+ *  Members are always listed in Direction order.
+ */
+public final class DirectionSet {
+    /** The empty set. */
+    public static final int NONE = 0;
+
+    /** All directions, in order. Direction.values() returns a new copy
+      * on every call. */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** The set of all directions. */
+    public static final int ALL = (1 << DIRECTIONS.length) - 1;
+
+    /** Ordinal of the k-th member of every set, at index set * 4 + k. */
+    private static final byte[] SELECT = select();
+
+    /** Unmodifiable list of the members of every set. */
+    private static final List<List<Direction>> LISTS = lists();
+
+    private DirectionSet() {
+    }
+
+    private static byte[] select() {
+        byte[] select = new byte[(ALL + 1) * DIRECTIONS.length];
+        for (int set = 0; set <= ALL; set++) {
+            int k = 0;
+            for (Direction d : DIRECTIONS) {
+                if (contains(set, d)) {
+                    select[set * DIRECTIONS.length + k] = (byte) d.ordinal();
+                    k += 1;
+                }
+            }
+        }
+        return select;
+    }
+
+    private static List<List<Direction>> lists() {
+        List<List<Direction>> lists = new ArrayList<>();
+        for (int set = 0; set <= ALL; set++) {
+            List<Direction> members = new ArrayList<>();
+            for (int k = 0; k < size(set); k++) {
+                members.add(get(set, k));
+            }
+            lists.add(Collections.unmodifiableList(members));
+        }
+        return lists;
+    }
+
+    /** Returns the set holding only D. */
+    public static int of(Direction d) {
+        return 1 << d.ordinal();
+    }
+
+    /** Returns the set holding the members of DIRECTIONS. */
+    public static int of(Collection<Direction> directions) {
+        int set = NONE;
+        for (Direction d : directions) {
+            set |= of(d);
+        }
+        return set;
+    }
+
+    /** Returns true if D is in SET. */
+    public static boolean contains(int set, Direction d) {
+        return (set & of(d)) != 0;
+    }
+
+    /** Returns the number of members of SET. */
+    public static int size(int set) {
+        return Integer.bitCount(set);
+    }
+
+    /** Returns true if SET has no members. */
+    public static boolean isEmpty(int set) {
+        return set == NONE;
+    }
+
+    /** Returns the K-th member of SET, counting from 0. K must be
+     *  less than size(SET). */
+    public static Direction get(int set, int k) {
+        return DIRECTIONS[SELECT[set * DIRECTIONS.length + k]];
+    }
+
+    /** Returns the members of SET as a shared, unmodifiable list. */
+    public static List<Direction> toList(int set) {
+        return LISTS.get(set);
+    }
+}
@@ -3,12 +3,19 @@ package huglife;
 import java.awt.*;
 
 public class Empty extends Occupant {
+    private static final Color WHITE = color(255, 255, 255);
+
     public Empty() {
         super(Type.EMPTY);
     }
 
-    /** Returns hardcoded black */
+    /** Returns hardcoded white */
     public Color color() {
-        return color(255, 255, 255);
-    }    
+        return WHITE;
+    }
+
+    @Override
+    public int argb() {
+        return 0xFFFFFFFF;
+    }
 }
\ No newline at end of file
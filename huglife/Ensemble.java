@@ -0,0 +1,251 @@
+package huglife;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/** Runs many independent worlds at once, typically the same world with
+ *  different seeds, without showing them.
+ *
+ *  Worlds run on a fixed number of threads, each world on one thread
+ *  from start to end with its own SequentialEngine. A Grid keeps its
+ *  own random stream, and creatures draw from the stream of the grid
+ *  they act in, so runs share no mutable state and give the same
+ *  result for a seed whatever else runs next to them.
+ *
+ *  Runs can be cancelled one by one through their Future, or all at
+ *  once with cancel. A running world notices between cycles.
+ */
+public final class Ensemble implements AutoCloseable {
+    /** What a run did. */
+    public static final class Result {
+        private final long seed;
+        private final long cycles;
+        private final long tics;
+        private final long nanos;
+        private final int[] populations;
+        private final long extinctionCycle;
+        private final Quiescence.Reason stopReason;
+        private final int sampleInterval;
+        private final int[][] series;
+
+        Result(long seed, long cycles, long tics, long nanos, int[] populations,
+               long extinctionCycle, Quiescence.Reason stopReason,
+               int sampleInterval, int[][] series) {
+            this.seed = seed;
+            this.cycles = cycles;
+            this.tics = tics;
+            this.nanos = nanos;
+            this.populations = populations;
+            this.extinctionCycle = extinctionCycle;
+            this.stopReason = stopReason;
+            this.sampleInterval = sampleInterval;
+            this.series = series;
+        }
+
+        /** Returns the seed the world ran with. */
+        public long seed() {
+            return seed;
+        }
+
+        /** Returns the number of cycles run. */
+        public long cycles() {
+            return cycles;
+        }
+
+        /** Returns the number of creature actions taken. */
+        public long tics() {
+            return tics;
+        }
+
+        /** Returns the wall clock time taken, in nanoseconds. */
+        public long nanos() {
+            return nanos;
+        }
+
+        /** Returns the final number of occupants of type T. */
+        public int population(Occupant.Type t) {
+            return populations[t.ordinal()];
+        }
+
+        /** Returns the cycle after which no creature was left, counting
+         *  from 1, or -1 if some survived. */
+        public long extinctionCycle() {
+            return extinctionCycle;
+        }
+
+        /** Returns why the run ended early, or null if it didn't. */
+        public Quiescence.Reason stopReason() {
+            return stopReason;
+        }
+
+        /** Returns the number of cycles between samples. */
+        public int sampleInterval() {
+            return sampleInterval;
+        }
+
+        /** Returns the number of samples taken: one before the first
+         *  cycle, and one after every sampleInterval cycles. */
+        public int samples() {
+            return series.length;
+        }
+
+        /** Returns the number of occupants of type T in sample I. */
+        public int population(int i, Occupant.Type t) {
+            return series[i][t.ordinal()];
+        }
+    }
+
+    private final ExecutorService executor;
+    /** Runs submitted and not known to be done. */
+    private final List<Future<Result>> runs = new ArrayList<>();
+    private int sampleInterval = 1;
+    private Supplier<Quiescence> quiescence;
+
+    /** Creates an ensemble that runs up to THREADS worlds at once. */
+    public Ensemble(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "huglife-ensemble-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Returns a source of fresh copies of the world in FILE, read as
+     *  HugLife.readWorld does, with the given seed. */
+    public static LongFunction<Grid> world(Path file) {
+        return world(file, Grid.Storage.OBJECT);
+    }
+
+    /** Returns a source of fresh copies of the world in FILE, as
+     *  world(FILE) does, kept in STORAGE. The file is read once, right
+     *  away, and every run gets a copy of what was read. */
+    public static LongFunction<Grid> world(Path file, Grid.Storage storage) {
+        Grid template;
+        try {
+            template = WorldFile.read(file, HugLife.WORLD_SIZE, storage);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Even reading a store isn't thread safe, see ChunkedWorldStore.
+        return seed -> {
+            synchronized (template) {
+                return template.copy(seed);
+            }
+        };
+    }
+
+    /** Makes runs submitted from now on sample the population every
+     *  CYCLES cycles. */
+    public void setSampleInterval(int cycles) {
+        if (cycles < 1) {
+            throw new IllegalArgumentException("Sample interval must be positive.");
+        }
+        sampleInterval = cycles;
+    }
+
+    /** Makes runs submitted from now on end early once a Quiescence
+     *  from QUIESCENCE finds them stuck, or never if it is null. Every
+     *  run gets a Quiescence of its own. */
+    public void setQuiescence(Supplier<Quiescence> quiescence) {
+        this.quiescence = quiescence;
+    }
+
+    /** Starts running the world that WORLD creates for SEED for up to
+     *  CYCLES cycles. */
+    public Future<Result> submit(LongFunction<Grid> world, long seed, long cycles) {
+        int interval = sampleInterval;
+        Quiescence q = quiescence == null ? null : quiescence.get();
+        Future<Result> f = executor.submit(() -> run(world.apply(seed), seed,
+                                                     cycles, interval, q));
+        synchronized (runs) {
+            runs.removeIf(Future::isDone);
+            runs.add(f);
+        }
+        return f;
+    }
+
+    /** Runs the world that WORLD creates for every one of SEEDS for up
+     *  to CYCLES cycles, and returns the results in the order of SEEDS.
+     *  If one run fails, the others are cancelled. */
+    public List<Result> runAll(LongFunction<Grid> world, long[] seeds, long cycles)
+            throws InterruptedException, ExecutionException {
+        List<Future<Result>> futures = new ArrayList<>(seeds.length);
+        for (long seed : seeds) {
+            futures.add(submit(world, seed, cycles));
+        }
+        List<Result> results = new ArrayList<>(seeds.length);
+        try {
+            for (Future<Result> f : futures) {
+                results.add(f.get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        } finally {
+            synchronized (runs) {
+                runs.removeAll(futures);
+            }
+        }
+        return results;
+    }
+
+    /** Cancels every run that hasn't finished, stopping those that are
+     *  running at the end of their current cycle. */
+    public void cancel() {
+        synchronized (runs) {
+            runs.forEach(f -> f.cancel(true));
+            runs.clear();
+        }
+    }
+
+    /** Cancels whatever is left and stops the threads. */
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    /** Runs G for up to CYCLES cycles on the calling thread. */
+    private static Result run(Grid g, long seed, long cycles, int interval,
+                              Quiescence q) {
+        CycleEngine engine = new SequentialEngine();
+        List<int[]> series = new ArrayList<>();
+        series.add(g.countTypes());
+        long extinction = -1;
+        Quiescence.Reason reason = null;
+        long tics = g.tics();
+        long start = System.nanoTime();
+        long done = 0;
+        while (done < cycles && !Thread.currentThread().isInterrupted()) {
+            engine.cycle(g);
+            done += 1;
+            if (extinction < 0 && g.population() == 0) {
+                extinction = done;
+            }
+            if (done % interval == 0) {
+                series.add(g.countTypes());
+            }
+            if (q != null) {
+                reason = q.check(g);
+                if (reason != null) {
+                    break;
+                }
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        return new Result(seed, done, g.tics() - tics, nanos, g.countTypes(),
+                          extinction, reason, interval,
+                          series.toArray(new int[0][]));
+    }
+}
@@ -0,0 +1,41 @@
+package huglife;
+
+/** A picture of a world at one moment: the packed ARGB color of every
+ *  cell, in cell order (row by row, from the bottom).
+ *
+ *  Frames are filled in by the simulation thread and then handed over
+ *  to a render thread as a whole. Once handed over, a frame is not
+ *  changed until the render thread hands it back, so readers may treat
+ *  it as immutable.
+ */
+public final class Frame {
+    private final int size;
+    private final int[] argb;
+    private long tics;
+
+    Frame(int size) {
+        this.size = size;
+        this.argb = new int[size * size];
+    }
+
+    /** Copies the current look of G into this frame. */
+    void capture(Grid g) {
+        g.fillArgb(argb);
+        tics = g.tics();
+    }
+
+    /** Returns the size of the world. */
+    public int size() {
+        return size;
+    }
+
+    /** Returns the number of tics the world had run when captured. */
+    public long tics() {
+        return tics;
+    }
+
+    /** Returns the packed ARGB color of cell X, Y. */
+    public int argb(int x, int y) {
+        return argb[y * size + x];
+    }
+}
@@ -0,0 +1,176 @@
+package huglife;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/** Runs simulation steps (tics or cycles) in frames of a fixed length,
+ *  drawing once per frame.
+ *
+ *  With a step rate, each frame runs the steps that fall due in it, so
+ *  the world moves at that rate whatever the frame rate is. Without one,
+ *  the pacer measures what a step and a draw cost and runs as many steps
+ *  per frame as fit next to the draw.
+ *
+ *  The pacer sleeps away whatever is left of a frame, but never sleeps
+ *  when it is behind. If it finishes a frame's steps too late for a
+ *  draw to end before the frame should, it skips that frame's draw (at
+ *  most MAX_SKIPPED in a row), so that slow drawing can't hold the
+ *  simulation back. When a draw takes longer than a whole frame, frames
+ *  without steps to spare would never end on time, so the steps then
+ *  get the whole frame and most draws are skipped.
+ */
+public class FramePacer {
+    /** Most draws skipped in a row before one is drawn anyway. */
+    static final int MAX_SKIPPED = 5;
+    /** Weight of the newest measurement in the running cost averages. */
+    private static final double SMOOTHING = 0.25;
+
+    private final long frameNanos;
+    private final double stepsPerFrame;
+    private final LongSupplier clock;
+    private final LongConsumer sleeper;
+
+    /** Running averages of the nanoseconds per step and per draw. */
+    private double stepCost;
+    private double drawCost;
+    /** Fraction of a step carried over to the next frame. */
+    private double owed;
+    private int lastBatch;
+    private long framesDrawn;
+    private long framesSkipped;
+
+    /** Creates a pacer that draws FPS frames per second and runs
+     *  STEPSPERSECOND steps per second, or as many as fit if that is 0. */
+    public FramePacer(double fps, double stepsPerSecond) {
+        this(fps, stepsPerSecond, System::nanoTime, FramePacer::sleep);
+    }
+
+    /** Creates a pacer that reads the time from CLOCK and waits with
+     *  SLEEPER. */
+    FramePacer(double fps, double stepsPerSecond, LongSupplier clock,
+               LongConsumer sleeper) {
+        if (fps <= 0 || stepsPerSecond < 0) {
+            throw new IllegalArgumentException("Frame rate must be positive "
+                                               + "and step rate not negative.");
+        }
+        this.frameNanos = (long) (1e9 / fps);
+        this.stepsPerFrame = stepsPerSecond / fps;
+        this.clock = clock;
+        this.sleeper = sleeper;
+    }
+
+    /** Runs STEPS steps with STEP, calling DRAW once per frame, and once
+     *  more at the end. */
+    public void run(long steps, Runnable step, Runnable draw) {
+        runWhile(steps, () -> {
+            step.run();
+            return true;
+        }, draw);
+    }
+
+    /** Same, but stops early, drawing once more, as soon as STEP
+     *  returns false. Returns the number of steps run. */
+    public long runWhile(long steps, BooleanSupplier step, Runnable draw) {
+        long done = 0;
+        long deadline = clock.getAsLong() + frameNanos;
+        int skipped = 0;
+        boolean stopped = false;
+        while (done < steps) {
+            int batch = (int) Math.min(nextBatch(), steps - done);
+            long start = clock.getAsLong();
+            int ran = 0;
+            while (ran < batch && !stopped) {
+                stopped = !step.getAsBoolean();
+                ran += 1;
+            }
+            long simulated = clock.getAsLong();
+            if (ran > 0) {
+                stepCost = average(stepCost, (double) (simulated - start) / ran);
+            }
+            done += ran;
+
+            if (simulated + drawCost <= deadline || skipped >= MAX_SKIPPED
+                    || done == steps || stopped) {
+                draw.run();
+                drawCost = average(drawCost, clock.getAsLong() - simulated);
+                framesDrawn += 1;
+                skipped = 0;
+            } else {
+                framesSkipped += 1;
+                skipped += 1;
+            }
+
+            if (stopped) {
+                break;
+            }
+            long now = clock.getAsLong();
+            if (now < deadline) {
+                sleeper.accept(deadline - now);
+                deadline += frameNanos;
+            } else if (now - deadline < frameNanos) {
+                deadline += frameNanos;
+            } else {
+                // Too far behind to catch up; start counting afresh.
+                deadline = now + frameNanos;
+            }
+        }
+        return done;
+    }
+
+    /** Returns the number of steps to run in the next frame. */
+    private int nextBatch() {
+        if (stepsPerFrame > 0) {
+            owed += stepsPerFrame;
+            int batch = (int) owed;
+            owed -= batch;
+            lastBatch = batch;
+        } else if (stepCost == 0) {
+            lastBatch = 1;
+        } else {
+            double budget = drawCost < frameNanos ? frameNanos - drawCost : frameNanos;
+            double fit = budget / stepCost;
+            // Grow gradually, so one cheap frame doesn't blow the next.
+            lastBatch = (int) Math.max(1, Math.min(fit, 2.0 * lastBatch));
+        }
+        return lastBatch;
+    }
+
+    private static double average(double average, double sample) {
+        return average == 0 ? sample : average + SMOOTHING * (sample - average);
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Returns the number of steps run in the latest frame. */
+    public int lastBatch() {
+        return lastBatch;
+    }
+
+    /** Returns the number of frames drawn so far. */
+    public long framesDrawn() {
+        return framesDrawn;
+    }
+
+    /** Returns the number of draws skipped because the pacer was behind. */
+    public long framesSkipped() {
+        return framesSkipped;
+    }
+
+    /** Returns the average cost of a step so far, in nanoseconds. */
+    public double stepNanos() {
+        return stepCost;
+    }
+
+    /** Returns the average cost of a draw so far, in nanoseconds. */
+    public double drawNanos() {
+        return drawCost;
+    }
+}
@@ -1,9 +1,11 @@
 package huglife;
 
-import java.util.ArrayDeque;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.Map;
-import java.util.Queue;
+import java.util.stream.IntStream;
 
 /** Primary class for simulation of a HugLife world.
  *
@@ -11,36 +13,380 @@ import java.util.Queue;
  *  @author Josh Hug
  */
 public class Grid {
+    /** Ways of storing the occupants of a grid. */
+    public enum Storage {
+        /** One Occupant object per cell. */
+        OBJECT,
+        /** Primitive arrays of types and a dense table of creatures,
+         *  for worlds too large to hold an object per cell. */
+        PACKED,
+        /** Chunks of cells allocated only where something lives, for
+         *  huge worlds that are mostly empty. Can't run parallel cycles,
+         *  and doesn't track dirty cells. */
+        CHUNKED
+    }
+
+    /** What lies beyond the edges of a grid. */
+    public enum Topology {
+        /** Impassible walls all around. */
+        BOUNDED,
+        /** The other side: edges wrap around, making the world a torus
+         *  without edge effects. */
+        TORUS
+    }
+
+    /** Largest size of a grid, so that every cell has an int id. */
+    public static final int MAX_SIZE = 46340;
+    /** Largest number of cells for which the neighbors of every cell
+     *  are tabled. Beyond that they are computed, which saves 16 bytes
+     *  per cell. */
+    private static final int MAX_TABLED_CELLS = 1 << 20;
+    /** All directions, in order. */
+    private static final Direction[] DIRECTIONS = Direction.values();
+    /** Energies closer than this may hash the same, see hash. */
+    public static final double ENERGY_QUANTUM = 1.0 / 4096;
+
     /** Size of the grid */
     private final int n;
+    /** How the occupants are stored */
+    private final Storage storage;
+    /** What lies beyond the edges */
+    private final Topology topology;
+    /** Id of the cell that stands for everything beyond the edges. It
+     *  always holds IMPASSIBLE, so neighbors across the edge of a
+     *  bounded world need no special case. */
+    private final int outside;
+    /** Neighbor of every cell, and of outside, in every direction, at
+     *  cell * 4 + direction ordinal. Null if the grid is too large or
+     *  sparse, in which case neighbors are computed. */
+    private final int[] adjacent;
     /** Total living population of the world */
     private int population;
-    /** 2D grid of all the occupants */
-    private final Occupant[][] occupants;
-    /** Not the most efficient data structure! We'll end up spending
-     * a linear amount of time scanning through this queue, when
-     * we could get this done essentially for free. Maybe I'll
-     * fix this later, but I don't think it's a performance bottleneck.
-     */
-    private final Queue<Position> moveQueue;
+    /** Number of cells holding each Occupant.Type, by ordinal, except
+     *  for EMPTY. Left alone while detached, like the population. */
+    private final int[] typeCounts = new int[Occupant.Type.values().length];
+    /** Number of actions taken by creatures so far */
+    private long tics;
+    /** All the occupants, by cell */
+    private final WorldStore occupants;
+    /** Cells waiting to act, in order. The MoveQueue.SENTINEL marks
+     *  the point where an entire cycle has been completed. */
+    private final MoveQueue moveQueue;
+    /** Reused by requestAction, so that asking for an action
+     *  doesn't create garbage. */
+    private final Scratch scratch = new Scratch();
+
+    /** True while an engine runs a cycle on several threads. The
+     *  population and the move queue are then left alone, and are
+     *  rebuilt by endParallelCycle. */
+    private boolean detached;
+    /** Number of the current parallel cycle. Creatures stamped with it
+     *  have already acted in this cycle. */
+    private int cycleStamp;
+    /** Cells that may look different since they were last drawn, one
+     *  bit per cell. Null if the world is too sparse to track them. */
+    private final long[] dirty;
+    /** True if everything has to be drawn, e.g. before the first frame
+     *  or after a parallel cycle, which doesn't track dirty cells. */
+    private boolean allDirty = true;
+    /** StdDraw canvas that drawChanges last drew on. */
+    private int drawnCanvas = -1;
+    /** Seed of this world, from which all of its randomness derives. */
+    private long seed;
+    /** Random stream of this world, current while its creatures act. */
+    private final SplitMix random;
+    /** Records every action taken, if not null. */
+    private ActionJournal journal;
+    /** Counts and times what happens, if not null. */
+    private Metrics metrics;
+    /** Flight recorder event of the tic in progress, if it is recorded.
+     *  Checks and queue operations add their time to it. */
+    private TicEvent ticEvent;
+    /** Flight recorder event of the cycle in progress, if recorded. */
+    private CycleEvent cycleEvent;
+    /** Tics at the start of the cycle in progress. */
+    private long cycleStartTics;
+    /** True if something was placed, removed or moved in the cycle in
+     *  progress. Threads of a parallel cycle may all set it at once,
+     *  which is harmless as they only ever set it. */
+    private boolean mutated;
+    /** Whether the last cycle did anything besides changing energies. */
+    private boolean lastCycleMutated = true;
+    /** Zobrist style hash of the world: the XOR of a key for every
+     *  occupied cell, derived from the cell, the type in it and its
+     *  quantized energy. Kept up to date with every change, except in
+     *  parallel cycles, after which it is recomputed. */
+    private long hash;
+    /** The hash at the end of the latest cycle. */
+    private long cycleHash;
+
+    /** Neighbor containers used while asking a creature for an action.
+     *  Every thread that asks for actions needs its own. */
+    static final class Scratch {
+        final NeighborView view = new NeighborView();
+        /** For creatures that only know chooseAction(Map). */
+        final EnumMap<Direction, Occupant> map = new EnumMap<>(Direction.class);
+    }
 
-    /** dummy position used to track when an entire cycle has been completed */
-    private static final Position sentinel = new Position(-23, -23);
+    /** Whether a creature class overrides chooseAction(NeighborView). */
+    private static final ClassValue<Boolean> USES_VIEW = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("chooseAction", NeighborView.class)
+                           .getDeclaringClass() != Creature.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
 
 
     /** Creates a grid of size n */
     public Grid(int n) {
+        this(n, Storage.OBJECT);
+    }
+
+    /** Creates a grid of size n whose occupants are kept in STORAGE. */
+    public Grid(int n, Storage storage) {
+        this(n, storage, RandomStreams.newSeed());
+    }
+
+    /** Creates a bounded grid of size n whose occupants are kept in
+     *  STORAGE, and whose randomness is derived from SEED. */
+    public Grid(int n, Storage storage, long seed) {
+        this(n, storage, Topology.BOUNDED, seed);
+    }
+
+    /** Creates a grid of size n with TOPOLOGY, whose occupants are kept
+     *  in STORAGE, and whose randomness is derived from SEED. */
+    public Grid(int n, Storage storage, Topology topology, long seed) {
+        if (n < 1 || n > MAX_SIZE) {
+            throw new IllegalArgumentException("Grid size must be between 1 and "
+                                               + MAX_SIZE + ", not " + n + ".");
+        }
         this.n = n;
+        this.storage = storage;
+        this.topology = topology;
+        this.seed = seed;
+        this.random = new SplitMix(seed);
         population = 0;
-        occupants = new Occupant[n][n];
-        for (int y = 0; y < n; y++) {
-            for (int x = 0; x < n; x++) {
-                occupants[y][x] = new Empty();
+        outside = n * n;
+        if (storage == Storage.CHUNKED) {
+            dirty = null;
+            occupants = new ChunkedWorldStore(n);
+            moveQueue = MoveQueue.sparse();
+        } else {
+            dirty = new long[(n * n + 63) >>> 6];
+            occupants = switch (storage) {
+                case OBJECT -> new ObjectWorldStore(n * n + 1);
+                default -> new PackedWorldStore(n * n + 1);
+            };
+            moveQueue = new MoveQueue(n * n);
+        }
+        occupants.put(outside, WorldStore.IMPASSIBLE);
+        adjacent = storage != Storage.CHUNKED && n * n <= MAX_TABLED_CELLS
+                   ? adjacency() : null;
+        moveQueue.add(MoveQueue.SENTINEL);
+
+    }
+
+    /** Tables the neighbors of every cell. */
+    private int[] adjacency() {
+        int[] a = new int[4 * (outside + 1)];
+        for (int c = 0; c <= outside; c++) {
+            for (Direction d : DIRECTIONS) {
+                a[c << 2 | d.ordinal()] = computeNeighbor(c, d);
             }
         }
-        moveQueue = new ArrayDeque<>();
-        moveQueue.add(sentinel);
+        return a;
+    }
+
+    /** Returns the size of the grid. */
+    public int size() {
+        return n;
+    }
+
+    /** Returns the total living population of the world. */
+    public int population() {
+        return population;
+    }
+
+    /** Returns the number of actions taken by creatures so far. */
+    public long tics() {
+        return tics;
+    }
+
+    /** Returns the seed this world's randomness is derived from. */
+    public long seed() {
+        return seed;
+    }
+
+    /** Restarts this world's randomness from SEED. Together with the
+     *  same initial world, this reproduces a run exactly. */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        random.setSeed(seed);
+    }
+
+    /** Returns the number of parallel cycles run so far. */
+    int cycleStamp() {
+        return cycleStamp;
+    }
+
+    /** Returns how the occupants are stored. */
+    Storage storage() {
+        return storage;
+    }
+
+    /** Returns what lies beyond the edges. */
+    public Topology topology() {
+        return topology;
+    }
+
+    /** Returns true if the last completed cycle placed, removed or
+     *  moved anything, rather than only changing energies. */
+    boolean lastCycleMutated() {
+        return lastCycleMutated;
+    }
+
+    /** Returns a 64 bit hash of the world as it is now: of which type
+     *  is in which cell, and of the energies of creatures, to within
+     *  ENERGY_QUANTUM. Equal worlds have equal hashes. */
+    public long hash() {
+        return hash;
+    }
+
+    /** Returns the hash of the world at the end of the latest cycle.
+     *  Runs that agree on the stream of cycle hashes agree on their
+     *  worlds, as far as hashes go. */
+    public long cycleHash() {
+        return cycleHash;
+    }
+
+    /** Returns the key of occupant O in cell C. */
+    private static long hashKey(int c, Occupant o) {
+        long key = SplitMix.mix((long) c << 3 | o.getType().ordinal());
+        if (o instanceof Creature creature) {
+            long q = Math.round(creature.energy() / ENERGY_QUANTUM);
+            key = SplitMix.mix(key + q * SplitMix.GOLDEN);
+        }
+        return key;
+    }
+
+    /** Returns the key that O in cell C currently adds to the hash. */
+    private static long hashedKey(int c, Occupant o) {
+        return o instanceof Creature creature ? creature.hashed : hashKey(c, o);
+    }
+
+    /** Adds O in cell C to the hash, or takes it out again. */
+    private void rehash(int c, Occupant o) {
+        long key = hashKey(c, o);
+        if (o instanceof Creature creature) {
+            creature.hashed = key;
+        }
+        hash ^= key;
+    }
+
+    /** Returns the state of this world's random stream. */
+    long randomState() {
+        return random.state();
+    }
+
+    /** Restores the counters and random state of a saved world. */
+    void restore(long tics, int cycleStamp, long randomState) {
+        this.tics = tics;
+        this.cycleStamp = cycleStamp;
+        random.setSeed(randomState);
+    }
 
+    /** Returns the move queue from front to back, with
+     *  MoveQueue.SENTINEL where a cycle ends. */
+    int[] queueOrder() {
+        return moveQueue.toArray();
+    }
+
+    /** Lines up the creatures, already placed, in ORDER as returned by
+     *  queueOrder, and counts them. */
+    void restoreQueue(int[] order) {
+        moveQueue.clear();
+        population = 0;
+        for (int c : order) {
+            if (c != MoveQueue.SENTINEL) {
+                creatureCheck(c, "line up");
+                population += 1;
+            }
+            moveQueue.add(c);
+        }
+    }
+
+    /** Returns a copy of this world with its own SEED: equal occupants
+     *  lined up in the same order, with the same counters, but nothing
+     *  recorded or timed. Only looks at occupied cells. */
+    Grid copy(long seed) {
+        Grid g = new Grid(n, storage, topology, seed);
+        g.restore(tics, cycleStamp, g.randomState());
+        for (int c : occupiedCells()) {
+            Occupant o = occupants.get(c);
+            if (o instanceof Creature cr) {
+                Creature twin = (Creature) Species.create(cr.getType(), cr.energy());
+                twin.restoreState(cr.saveState());
+                twin.cycleStamp = cr.cycleStamp;
+                o = twin;
+            }
+            g.placeOccupant(c, o);
+        }
+        g.restoreQueue(queueOrder());
+        return g;
+    }
+
+    /** Makes J record every action from now on, or stops recording if
+     *  J is null. See ActionJournal. */
+    void setJournal(ActionJournal j) {
+        journal = j;
+    }
+
+    /** Makes M count and time what happens from now on, or stops if M
+     *  is null. See Metrics. */
+    void setMetrics(Metrics m) {
+        metrics = m;
+        if (m != null) {
+            countPopulation();
+            m.queueLength(moveQueue.size() - 1);
+        }
+    }
+
+    /** Returns the metrics this grid records into, or null. */
+    Metrics metrics() {
+        return metrics;
+    }
+
+    /** Sets the population of every type in the metrics. */
+    private void countPopulation() {
+        int[] counts = countTypes();
+        for (Occupant.Type t : Occupant.Type.values()) {
+            metrics.population(t, t == Occupant.Type.EMPTY ? 0 : counts[t.ordinal()]);
+        }
+    }
+
+    /** Returns the number of cells holding each Occupant.Type, by
+     *  ordinal. The counts are kept up to date as occupants come and
+     *  go, so this doesn't look at any cell. */
+    int[] countTypes() {
+        int[] counts = typeCounts.clone();
+        int occupied = 0;
+        for (int count : counts) {
+            occupied += count;
+        }
+        counts[Occupant.Type.EMPTY.ordinal()] = outside - occupied;
+        return counts;
+    }
+
+    /** Returns the id of every cell that isn't empty, in cell order. */
+    int[] occupiedCells() {
+        IntStream.Builder cells = IntStream.builder();
+        occupants.forEachOccupied(outside, cells);
+        return cells.build().sorted().toArray();
     }
 
     /** Returns true if X and Y are in bounds */
@@ -48,34 +394,72 @@ public class Grid {
         return x >= 0 && y >= 0 && x < n && y < n;
     }
 
-    /** Returns true if X, Y is empty */
-    private boolean isEmpty(int x, int y) {
-        return getOccupant(x, y).getType() == Occupant.Type.EMPTY;
+    /** Returns the packed cell id of in bounds position X, Y. */
+    private int cell(int x, int y) {
+        return y * n + x;
     }
 
-    /** Returns true if X and Y doesn't contain a living thing,
-        i.e. if the contents are anything other than empty
-        or impassible. Wowza, actually useful instanceof!  */
-    private boolean isNotCreature(int x, int y) {
-        var o = getOccupant(x, y);
-        return !(o instanceof Creature);
+    /** Returns the cell id of any position X, Y: wrapped around on a
+     *  torus, or outside if it is beyond the edges of a bounded world. */
+    private int cellAt(int x, int y) {
+        if (topology == Topology.TORUS) {
+            return cell(Math.floorMod(x, n), Math.floorMod(y, n));
+        }
+        return inBounds(x, y) ? cell(x, y) : outside;
     }
 
-    /** Returns occupant of X and Y */
-    private Occupant getOccupant(int x, int y) {
+    /** Returns the cell next to cell C in direction D. */
+    private int neighbor(int c, Direction d) {
+        if (adjacent != null) {
+            return adjacent[c << 2 | d.ordinal()];
+        }
+        return computeNeighbor(c, d);
+    }
 
-        if (inBounds(x, y)) {
-            return occupants[y][x];
+    private int computeNeighbor(int c, Direction d) {
+        if (c == outside) {
+            return outside;
         }
+        int x = c % n;
+        int y = c / n;
+        return switch (d) {
+            case TOP -> cellAt(x, y + 1);
+            case BOTTOM -> cellAt(x, y - 1);
+            case LEFT -> cellAt(x - 1, y);
+            case RIGHT -> cellAt(x + 1, y);
+        };
+    }
+
+    /** Describes the position of cell C, for error messages. */
+    private String position(int c) {
+        if (c == outside) {
+            return "(outside the world)";
+        }
+        return String.format("(%d, %d)", c % n, c / n);
+    }
+
+    /** Returns true if cell C is empty */
+    private boolean isEmpty(int c) {
+        return occupants.type(c) == Occupant.Type.EMPTY;
+    }
 
-        return new Impassible();
+    /** Returns true if cell C doesn't contain a living thing,
+        i.e. if the contents are anything other than empty
+        or impassible. */
+    private boolean isNotCreature(int c) {
+        return !WorldStore.isCreature(occupants.type(c));
     }
 
-    /** Returns creature in position X and Y. If there is
-        no creature at position x, y, an exception is thrown.  */
-    private Creature getCreature(int x, int y) {
-        creatureCheck(x, y);
-        return (Creature) getOccupant(x, y);
+    /** Returns occupant of X and Y */
+    Occupant getOccupant(int x, int y) {
+        return occupants.get(cellAt(x, y));
+    }
+
+    /** Returns creature in cell C. If there is no creature
+        there, an exception is thrown.  */
+    private Creature getCreature(int c) {
+        creatureCheck(c);
+        return (Creature) occupants.get(c);
     }
 
     /** creates a new member of the world and puts at end of queue.
@@ -84,18 +468,18 @@ public class Grid {
         2. add to grid
         3. add to deque */
     void createCreature(int x, int y, Creature c) {
-        if (!isEmpty(x, y)) {
-            var oldOccupant = getOccupant(x, y);
-            throw new IllegalArgumentException(
-                      String.format("Tried to place a %s at (%d, %d), but "
-                       + " space is already occupied by a %s.", c.getType(),
-                       x, y, oldOccupant));
+        createCreature(cellAt(x, y), c);
+    }
+
+    private void createCreature(int cell, Creature c) {
+        placeOccupant(cell, c);
+        c.cycleStamp = cycleStamp;
+        if (detached) {
+            return;
         }
 
         population += 1;
-        placeOccupant(x, y, c);
-
-        getInLine(x, y);
+        getInLine(cell);
     }
 
     /** destroys creature in position x, y
@@ -104,42 +488,120 @@ public class Grid {
         2. remove from grid
         3. remove from deque */
     void destroyCreature(int x, int y) {
-        if (isNotCreature(x, y)) {
+        destroyCreature(cellAt(x, y));
+    }
+
+    private void destroyCreature(int c) {
+        if (isNotCreature(c)) {
             throw new IllegalArgumentException(
-                      String.format("Tried to destroy a creature at (%d, %d), but " +
-                             "no creature at this position.", x, y));
+                      String.format("Tried to destroy a creature at %s, but " +
+                             "no creature at this position.", position(c)));
+        }
+
+        removeOccupant(c);
+        if (detached) {
+            return;
         }
 
         population -= 1;
-        removeOccupant(x, y);
-        removeFromQueue(x, y);
+        removeFromQueue(c);
     }
 
     /** Places occupant O in position X and Y, throwing an
         exception if the space is not empty.  */
 
     void placeOccupant(int x, int y, Occupant o) {
-        if (!isEmpty(x, y)) {
-            var oldOccupant = getOccupant(x, y);
+        placeOccupant(cellAt(x, y), o);
+    }
+
+    private void placeOccupant(int c, Occupant o) {
+        if (!isEmpty(c)) {
             throw new IllegalArgumentException(
-                      String.format("Tried to place a %s at (%d, %d), but "
+                      String.format("Tried to place a %s at %s, but "
                        + " space is already occupied by a %s.", o.getType(),
-                       x, y, oldOccupant));
+                       position(c), occupants.get(c)));
         }
 
-        occupants[y][x] = o;
+        occupants.put(c, o);
+        markDirty(c);
+        mutated = true;
+        if (!detached) {
+            rehash(c, o);
+            typeCounts[o.getType().ordinal()] += 1;
+            if (metrics != null) {
+                metrics.added(o.getType());
+            }
+        }
     }
 
 
     /** removes occupant, does not affect population or dequeue */
-    private void removeOccupant(int x, int y) {
-        if (isEmpty(x, y) || !inBounds(x, y)) {
+    private void removeOccupant(int c) {
+        if (isEmpty(c) || c == outside) {
             throw new IllegalArgumentException(
-                      String.format("Tried to remove (%d, %d), but "
-                       + " space is empty or out of bounds.", x, y));
+                      String.format("Tried to remove %s, but "
+                       + " space is empty or out of bounds.", position(c)));
         }
 
-        occupants[y][x] = new Empty();
+        if (!detached) {
+            hash ^= hashedKey(c, occupants.get(c));
+            typeCounts[occupants.type(c).ordinal()] -= 1;
+            if (metrics != null) {
+                metrics.removed(occupants.type(c));
+            }
+        }
+        occupants.clear(c);
+        markDirty(c);
+        mutated = true;
+    }
+
+    /** Moves the occupant of cell C into cell T, throwing an exception
+        if C is empty or T is not. Does not affect population or
+        dequeue. */
+    private void moveOccupant(int c, int t) {
+        if (isEmpty(c) || c == outside) {
+            throw new IllegalArgumentException(
+                      String.format("Tried to remove %s, but "
+                       + " space is empty or out of bounds.", position(c)));
+        }
+        if (!isEmpty(t)) {
+            throw new IllegalArgumentException(
+                      String.format("Tried to place a %s at %s, but "
+                       + " space is already occupied by a %s.",
+                       occupants.type(c), position(t), occupants.get(t)));
+        }
+
+        if (!detached) {
+            Occupant o = occupants.get(c);
+            hash ^= hashedKey(c, o);
+            rehash(t, o);
+        }
+        occupants.move(c, t);
+        markDirty(c);
+        markDirty(t);
+        mutated = true;
+    }
+
+    /** Updates the store after the creature in cell C acted, which may
+     *  have changed its energy and its color. */
+    private void refresh(int c) {
+        occupants.refresh(c);
+        markDirty(c);
+        if (!detached) {
+            Occupant o = occupants.get(c);
+            hash ^= hashedKey(c, o);
+            rehash(c, o);
+        }
+    }
+
+    /** Remembers that cell C has to be redrawn. Parallel cycles can't
+     *  share the bitset, so they mark everything when they end. */
+    private void markDirty(int c) {
+        if (dirty == null) {
+            allDirty = true;
+        } else if (!detached) {
+            dirty[c >>> 6] |= 1L << c;
+        }
     }
 
     /** True if any life exists. */
@@ -152,12 +614,16 @@ public class Grid {
       * of position X and Y */
 
     public Map<Direction, Occupant> neighbors(int x, int y) {
-        EnumMap<Direction, Occupant> neighbors =
-                new EnumMap<>(Direction.class);
-        Occupant top = getOccupant(x, y + 1);
-        Occupant bottom = getOccupant(x, y - 1);
-        Occupant left = getOccupant(x - 1, y);
-        Occupant right = getOccupant(x + 1, y);
+        return neighbors(cellAt(x, y), new EnumMap<>(Direction.class));
+    }
+
+    /** Fills NEIGHBORS with the neighbors of cell C and returns it. */
+    private Map<Direction, Occupant> neighbors(int c,
+                                 EnumMap<Direction, Occupant> neighbors) {
+        Occupant top = occupants.get(neighbor(c, Direction.TOP));
+        Occupant bottom = occupants.get(neighbor(c, Direction.BOTTOM));
+        Occupant left = occupants.get(neighbor(c, Direction.LEFT));
+        Occupant right = occupants.get(neighbor(c, Direction.RIGHT));
 
         neighbors.put(Direction.TOP, top);
         neighbors.put(Direction.BOTTOM, bottom);
@@ -170,8 +636,7 @@ public class Grid {
 
     /** Redraw entire world (slow!).
      *
-     *  In a better simulator, we'd only redraw the things
-     *  we really needed to redraw.
+     *  drawChanges only redraws the things we really need to redraw.
      */
     public void drawWorld() {
         StdDraw.clear();
@@ -182,169 +647,234 @@ public class Grid {
 
         for (int x = 0; x < n; x += 1) {
             for (int y = 0; y < n; y += 1) {
-                Occupant o = getOccupant(x, y);
-                StdDraw.setPenColor(o.color());
-                StdDraw.filledSquare(x + 0.5, y + 0.5, 0.45);
+                drawCell(x, y);
             }
         }
+        if (dirty != null) {
+            Arrays.fill(dirty, 0);
+            allDirty = false;
+        }
+        drawnCanvas = StdDraw.canvasGeneration();
+    }
+
+    /** Redraws only the cells that changed since the last drawing, on
+     *  top of what StdDraw kept of it. Falls back to drawWorld for the
+     *  first frame, or if the canvas has been recreated since.
+     */
+    public void drawChanges() {
+        if (allDirty || drawnCanvas != StdDraw.canvasGeneration()) {
+            drawWorld();
+            return;
+        }
+        StdDraw.setXscale(0, n);
+        StdDraw.setYscale(0, n);
+        for (int i = 0; i < dirty.length; i++) {
+            long bits = dirty[i];
+            while (bits != 0) {
+                int c = (i << 6) + Long.numberOfTrailingZeros(bits);
+                drawCell(c % n, c / n);
+                bits &= bits - 1;
+            }
+            dirty[i] = 0;
+        }
+    }
+
+    /** Fills ARGB with the packed color of every cell, in cell order. */
+    void fillArgb(int[] argb) {
+        Arrays.fill(argb, 0, outside, WorldStore.EMPTY.argb());
+        occupants.forEachOccupied(outside, c -> argb[c] = occupants.get(c).argb());
+    }
+
+    /** Draws the occupant of X, Y, leaving the black border around it. */
+    private void drawCell(int x, int y) {
+        Occupant o = getOccupant(x, y);
+        StdDraw.setPenColor(Palette.color(o.argb()));
+        StdDraw.filledSquare(x + 0.5, y + 0.5, 0.45);
     }
 
     /**
-     * Writes the world to a .world file
+     * Writes the world to a .world file, see WorldFile.
      * @param worldName name fo the world that is being written
      */
     public void writeWorld(String worldName) {
-        Out out = new Out("huglife/" + worldName + ".world");
-        for (int j = n; j >= 0; j--) {
-             for (int i = 0; i < n; i++) {
-                Occupant o = getOccupant(i, j);
-                out.println(o.getType() + " " + i + " " + j);
-            }
-            out.println();
+        var file = Path.of("huglife/" + worldName + ".world");
+        try {
+            WorldFile.write(this, file, true);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not write " + file, e);
         }
     }
 
-    /** Gives the x, y coordinates if we go in direction of action A from
-     *  position X, Y
+    /** Gives the cell that action A of the creature in cell C is
+     *  aimed at: the neighbor in its direction, the absolute position
+     *  it names, or C itself if it doesn't move.
      */
-
-    private static Position targetPosition(int x, int y, Action a) {
-        if (a.dir == Direction.TOP) {
-            return new Position(x, y + 1);
+    private int target(int c, Action a) {
+        if (a.dir != null) {
+            return neighbor(c, a.dir);
         }
-        if (a.dir == Direction.BOTTOM) {
-            return new Position(x, y - 1);
+        if (a.type == Action.Type.STAY || a.type == Action.Type.DIE) {
+            return c;
         }
-        if (a.dir == Direction.LEFT) {
-            return new Position(x - 1, y);
-        }
-        if (a.dir == Direction.RIGHT) {
-            return new Position(x + 1, y);
-        }
-        return new Position(a.x, a.y);
-
+        return cellAt(a.x, a.y);
     }
 
 
-    /**  Remove position X, Y from the move queue.
+    /**  Remove cell C from the move queue.
       *
       *  Permit removal even if something is not in the queue.
       *  This can happen because a creature just chose the die action */
-    private void removeFromQueue(int x, int y) {
-        Position p = new Position(x, y);
-        moveQueue.remove(p);
+    private void removeFromQueue(int c) {
+        long start = ticEvent != null ? System.nanoTime() : 0;
+        moveQueue.remove(c);
+        if (ticEvent != null) {
+            ticEvent.queue += System.nanoTime() - start;
+        }
     }
 
-    /** Puts position X, Y into the move queue. */
-    private void getInLine(int x, int y) {
-        Position p = new Position(x, y);
-        if (isNotCreature(x, y)) {
+    /** Puts cell C into the move queue. */
+    private void getInLine(int c) {
+        if (detached) {
+            return;
+        }
+        long start = ticEvent != null ? System.nanoTime() : 0;
+        if (isNotCreature(c)) {
 
-            String msg = String.format("Tried to add creature at (%d, %d) to " +
+            String msg = String.format("Tried to add creature at %s to " +
                          "the move queue, but no creature exists at that spot.",
-                         x, y);
+                         position(c));
 
             throw new IllegalArgumentException(msg);
         }
 
-        if (moveQueue.contains(p)) {
-            String msg = String.format("Tried to add creature at (%d, %d) to " +
+        if (moveQueue.contains(c)) {
+            String msg = String.format("Tried to add creature at %s to " +
                          "the move queue, but creature is already in line.",
-                         x, y);
+                         position(c));
 
             throw new IllegalArgumentException(msg);
 
         }
 
-        moveQueue.add(p);
+        moveQueue.add(c);
+        if (ticEvent != null) {
+            ticEvent.queue += System.nanoTime() - start;
+        }
     }
 
     /** Peforms a move action from X, Y to TX, TY. */
     void doMove(int x, int y, int tx, int ty) {
-        Creature from = getCreature(x, y);
+        doMove(cellAt(x, y), cellAt(tx, ty));
+    }
 
-        collisionCheck(x, y, tx, ty, "move");
+    private void doMove(int c, int t) {
+        Creature from = getCreature(c);
 
-        placeOccupant(tx, ty, from);
-        removeOccupant(x, y);
+        collisionCheck(c, t, "move");
+
+        moveOccupant(c, t);
 
         from.move();
+        refresh(t);
 
-        getInLine(tx, ty);
+        getInLine(t);
     }
 
     /** Perform the replicate action from X, Y to TX, TY */
     void doReplicate(int x, int y, int tx, int ty) {
-        Creature from = getCreature(x, y);
+        doReplicate(cellAt(x, y), cellAt(tx, ty));
+    }
+
+    private void doReplicate(int c, int t) {
+        Creature from = getCreature(c);
 
-        creatureCheck(x, y, "replicate");
-        collisionCheck(x, y, tx, ty, "replicate");
+        creatureCheck(c, "replicate");
+        collisionCheck(c, t, "replicate");
 
         Creature newCreature = from.replicate();
-        createCreature(tx, ty, newCreature);
+        refresh(c);
+        createCreature(t, newCreature);
 
-        getInLine(x, y);
+        getInLine(c);
     }
 
     /** Kills off creature in position X, Y, replacing it with
         an empty square. */
     void doDie(int x, int y) {
-        destroyCreature(x, y);
+        destroyCreature(cellAt(x, y));
     }
 
     /** Creature in X, Y takes TX, TY's place. Tx, ty
         is removed from the board. Attacks always succeed.
         Attacks on empty squares are forbidden. */
     void doAttack(int x, int y, int tx, int ty) {
-        creatureCheck(x, y, "attack");
-        creatureCheck(tx, ty, "attack");
+        doAttack(cellAt(x, y), cellAt(tx, ty));
+    }
+
+    private void doAttack(int c, int t) {
+        creatureCheck(c, "attack");
+        creatureCheck(t, "attack");
 
-        Creature from = getCreature(x, y);
-        Creature to = getCreature(tx, ty);
+        Creature from = getCreature(c);
+        Creature to = getCreature(t);
 
-        destroyCreature(tx, ty);
+        destroyCreature(t);
 
-        removeOccupant(x, y);
-        placeOccupant(tx, ty, from);
+        moveOccupant(c, t);
         from.attack(to);
-        getInLine(tx, ty);
+        refresh(t);
+        getInLine(t);
     }
 
     /** Performs the stay action in position X, Y */
     void doStay(int x, int y) {
-        Creature c = getCreature(x, y);
+        doStay(cellAt(x, y));
+    }
+
+    private void doStay(int c) {
+        Creature creature = getCreature(c);
 
-        c.stay();
-        getInLine(x, y);
+        creature.stay();
+        refresh(c);
+        getInLine(c);
     }
 
     /** Handles action A in position X, Y.
      */
     void handleAction(int x, int y, Action a) {
-        Position p = targetPosition(x, y, a);
-        int tx = p.x();
-        int ty = p.y();
+        handleAction(cellAt(x, y), a);
+    }
+
+    /** Handles action A of the creature in cell C. */
+    private void handleAction(int c, Action a) {
+        int t = target(c, a);
 
         if (a.type == Action.Type.MOVE) {
-            doMove(x, y, tx, ty);
+            doMove(c, t);
         }
 
         if (a.type == Action.Type.REPLICATE) {
-            doReplicate(x, y, tx, ty);
+            doReplicate(c, t);
         }
 
         if (a.type == Action.Type.DIE) {
-            doDie(x, y);
+            destroyCreature(c);
         }
 
         if (a.type == Action.Type.ATTACK) {
-            doAttack(x, y, tx, ty);
+            doAttack(c, t);
         }
 
         if (a.type == Action.Type.STAY) {
-            doStay(x, y);
+            doStay(c);
         }
 
+        if (journal != null) {
+            journal.record(c, a, t);
+        }
+        if (metrics != null) {
+            metrics.action(a.type);
+        }
     }
 
 
@@ -354,14 +884,45 @@ public class Grid {
      *  square for an action.
      */
     Action requestAction(int x, int y) {
-        creatureCheck(x, y, "requestAction");
-        Creature c = (Creature) getOccupant(x, y);
-        if (c.energy() < 0) {
-            return new Action(Action.Type.DIE);
+        return requestAction(cellAt(x, y), scratch);
+    }
+
+    /** Same, filling the neighbors into the containers of S. */
+    Action requestAction(int x, int y, Scratch s) {
+        return requestAction(cellAt(x, y), s);
+    }
+
+    /** Requests an action from the creature in cell C, filling the
+     *  neighbors into the containers of S. */
+    private Action requestAction(int c, Scratch s) {
+        creatureCheck(c, "requestAction");
+        Creature creature = (Creature) occupants.get(c);
+        if (creature.energy() < 0) {
+            return Action.of(Action.Type.DIE);
+        }
+
+        if (metrics == null) {
+            return chooseAction(creature, c, s);
+        }
+        long start = System.nanoTime();
+        Action a = chooseAction(creature, c, s);
+        metrics.chooseAction(creature.getType()).record(System.nanoTime() - start);
+        return a;
+    }
+
+    /** Asks creature CREATURE in cell C for an action, showing it its
+     *  neighbors in whichever way it prefers. */
+    private Action chooseAction(Creature creature, int c, Scratch s) {
+        if (USES_VIEW.get(creature.getClass())) {
+            s.view.set(occupants.get(neighbor(c, Direction.TOP)),
+                       occupants.get(neighbor(c, Direction.BOTTOM)),
+                       occupants.get(neighbor(c, Direction.LEFT)),
+                       occupants.get(neighbor(c, Direction.RIGHT)));
+            return creature.chooseAction(s.view);
         }
 
-        Map<Direction, Occupant> nbot = neighbors(x, y);
-        return c.chooseAction(nbot);
+        Map<Direction, Occupant> nbot = neighbors(c, s.map);
+        return creature.chooseAction(nbot);
     }
 
     /** Perform one tic of the simulation. Returns true if
@@ -372,66 +933,270 @@ public class Grid {
             if (false) {
                 assertQueueCorrect();
             }
-            Position p = moveQueue.remove();
-            if (p.equals(sentinel)) {
-                moveQueue.add(sentinel);
+            TicEvent event = null;
+            if (TicEvent.TYPE.isEnabled()) {
+                event = new TicEvent();
+                event.begin();
+                event.queue = System.nanoTime();
+            }
+            int c = moveQueue.remove();
+            if (event != null) {
+                event.queue = System.nanoTime() - event.queue;
+            }
+            if (c == MoveQueue.SENTINEL) {
+                moveQueue.add(MoveQueue.SENTINEL);
+                endCycle();
                 return true;
             }
 
-            Action action = requestAction(p.x, p.y);
-            handleAction(p.x, p.y, action);
+            tics += 1;
+            long start = metrics != null ? System.nanoTime() : 0;
+            SplitMix previous = RandomStreams.use(random);
+            try {
+                if (event == null) {
+                    Action action = requestAction(c, scratch);
+                    handleAction(c, action);
+                } else {
+                    recordedTic(event, c);
+                }
+            } finally {
+                RandomStreams.use(previous);
+                ticEvent = null;
+            }
+            if (metrics != null) {
+                metrics.tic().record(System.nanoTime() - start);
+                metrics.queueLength(moveQueue.size() - 1);
+            }
+            return false;
+        }
+        endCycle();
+        return true;
+    }
+
+    /** Same as the body of tic for cell C, for tics recorded as EVENT:
+     *  times the phases of the tic and commits the event if it was slow. */
+    private void recordedTic(TicEvent event, int c) {
+        ticEvent = event;
+        Occupant.Type species = occupants.type(c);
+        long start = System.nanoTime();
+        Action action = requestAction(c, scratch);
+        long chosen = System.nanoTime();
+        long validation = event.validation;
+        long queue = event.queue;
+        handleAction(c, action);
+        long handled = System.nanoTime();
+        event.end();
+        if (event.shouldCommit()) {
+            event.x = c % n;
+            event.y = c / n;
+            event.species = species.name();
+            event.action = action.type.name();
+            event.choose = chosen - start - validation;
+            event.apply = handled - chosen - (event.validation - validation)
+                          - (event.queue - queue);
+            event.commit();
+        }
+    }
+
+    private void endCycle() {
+        lastCycleMutated = mutated;
+        mutated = false;
+        cycleHash = hash;
+        if (journal != null) {
+            journal.endCycle();
+        }
+        if (metrics != null) {
+            metrics.cycleEnded(System.nanoTime());
+        }
+        nextCycleEvent(false);
+    }
+
+    /** Commits the event of the cycle that just ended, if it is being
+     *  recorded, and starts one for the next. */
+    private void nextCycleEvent(boolean parallel) {
+        if (cycleEvent != null) {
+            cycleEvent.end();
+            if (cycleEvent.shouldCommit()) {
+                cycleEvent.tics = tics - cycleStartTics;
+                cycleEvent.population = population;
+                cycleEvent.parallel = parallel;
+                cycleEvent.checksum = cycleHash;
+                cycleEvent.commit();
+            }
+            cycleEvent = null;
+        }
+        if (CycleEvent.TYPE.isEnabled()) {
+            cycleEvent = new CycleEvent();
+            cycleEvent.begin();
+            cycleStartTics = tics;
+        }
+    }
+
+    /** Replays a recorded tic, in which the creature in CELL took action
+     *  A, after which it had ENERGY and its child, if any, CHILDENERGY.
+     *  The creature isn't asked for an action, but it is told about the
+     *  action so that its state follows. Throws IllegalStateException if
+     *  CELL is not the next in line. */
+    void replayTic(int cell, Action a, double energy, double childEnergy) {
+        int c = moveQueue.remove();
+        if (c != cell) {
+            throw new IllegalStateException(String.format("Journal has cell "
+                      + "%d acting, but cell %d is next in line.", cell, c));
+        }
+        int t = target(c, a);
+        tics += 1;
+        handleAction(c, a);
+        switch (a.type) {
+            case MOVE, ATTACK -> restoreEnergy(t, energy);
+            case STAY -> restoreEnergy(c, energy);
+            case REPLICATE -> {
+                restoreEnergy(c, energy);
+                restoreEnergy(t, childEnergy);
+            }
+            default -> {
+            }
+        }
+    }
+
+    /** Replays the end of a recorded cycle. */
+    void replayEndOfCycle() {
+        if (!lifeExists()) {
+            return;
+        }
+        int c = moveQueue.remove();
+        if (c != MoveQueue.SENTINEL) {
+            throw new IllegalStateException(String.format("Journal has a cycle "
+                      + "ending, but cell %d is next in line.", c));
+        }
+        moveQueue.add(MoveQueue.SENTINEL);
+    }
+
+    private void restoreEnergy(int c, double energy) {
+        getCreature(c).restoreEnergy(energy);
+        refresh(c);
+    }
+
+    /** Starts a cycle run by an engine on several threads, during which
+     *  only act may be used. */
+    void beginParallelCycle() {
+        if (!occupants.concurrent()) {
+            throw new IllegalStateException("Can't run parallel cycles on "
+                                            + storage + " storage.");
+        }
+        if (journal != null) {
+            throw new IllegalStateException("Can't journal parallel cycles, "
+                                            + "since their actions have no order.");
+        }
+        occupants.reserve(population);
+        cycleStamp += 1;
+        detached = true;
+    }
+
+    /** Lets the creature in X, Y act, unless there is none or it has
+     *  already acted in this parallel cycle. S must belong to the
+     *  calling thread. Returns true if a creature acted. */
+    boolean act(int x, int y, Scratch s) {
+        int c = cell(x, y);
+        if (!WorldStore.isCreature(occupants.type(c))) {
+            return false;
+        }
+        Creature creature = (Creature) occupants.get(c);
+        if (creature.cycleStamp == cycleStamp) {
             return false;
         }
+        creature.cycleStamp = cycleStamp;
+        handleAction(c, requestAction(c, s));
         return true;
     }
 
+    /** Ends a parallel cycle in which ACTED creatures acted: recounts
+     *  the population and lines up every creature, in row order, for a
+     *  full cycle. */
+    void endParallelCycle(long acted) {
+        detached = false;
+        allDirty = true;
+        tics += acted;
+        lastCycleMutated = mutated;
+        mutated = false;
+        moveQueue.clear();
+        population = 0;
+        hash = 0;
+        Arrays.fill(typeCounts, 0);
+        for (int c : occupiedCells()) {
+            Occupant.Type t = occupants.type(c);
+            rehash(c, occupants.get(c));
+            typeCounts[t.ordinal()] += 1;
+            if (WorldStore.isCreature(t)) {
+                population += 1;
+                moveQueue.add(c);
+            }
+        }
+        cycleHash = hash;
+        moveQueue.add(MoveQueue.SENTINEL);
+        if (metrics != null) {
+            countPopulation();
+            metrics.queueLength(population);
+            metrics.cycleEnded(System.nanoTime());
+        }
+        nextCycleEvent(true);
+    }
+
 
-    /** Checks that a move from X, Y to TX, TY is valid, where
+    /** Checks that a move from cell C to cell T is valid, where
      *  MOVESTR is the type of move, printed for debugging reasons.
      */
 
-    private void collisionCheck(int x, int y, int tx, int ty,
-                                String moveStr) {
-        Occupant from = getOccupant(x, y);
-        Occupant to = getOccupant(tx, ty);
-
-        if (!isEmpty(tx, ty)) {
+    private void collisionCheck(int c, int t, String moveStr) {
+        long start = ticEvent != null ? System.nanoTime() : 0;
+        if (!isEmpty(t)) {
 
             String msg = String.format("%s tried to %s from " +
-                         "(%d, %d) to (%d, %d) already occupied by %s.",
-                         from.getType(), moveStr, x, y, tx, ty, to.getType());
+                         "%s to %s already occupied by %s.",
+                         occupants.type(c), moveStr, position(c), position(t),
+                         occupants.type(t));
 
             throw new IllegalArgumentException(msg);
         }
+        if (ticEvent != null) {
+            ticEvent.validation += System.nanoTime() - start;
+        }
     }
 
 
-    /** Checks that a creature exists at position X, Y, where
+    /** Checks that a creature exists in cell C, where
      *  ACTIONSTR is the type of action, printed for debugging reasons.
      */
-    private void creatureCheck(int x, int y, String actionStr) {
-        if (isNotCreature(x, y)) {
+    private void creatureCheck(int c, String actionStr) {
+        long start = ticEvent != null ? System.nanoTime() : 0;
+        if (isNotCreature(c)) {
 
             String msg = String.format("Something tried to %s at " +
-                         "(%d, %d), but no creature exists at that spot.",
-                         actionStr, x, y);
+                         "%s, but no creature exists at that spot.",
+                         actionStr, position(c));
 
             throw new IllegalArgumentException(msg);
         }
+        if (ticEvent != null) {
+            ticEvent.validation += System.nanoTime() - start;
+        }
     }
 
-    /** Checks that a creature exists at position X, Y.
+    /** Checks that a creature exists in cell C.
      */
 
-    private void creatureCheck(int x, int y) {
-        if (isNotCreature(x, y)) {
+    private void creatureCheck(int c) {
+        long start = ticEvent != null ? System.nanoTime() : 0;
+        if (isNotCreature(c)) {
 
             String msg = String.format("Tried to get creature from " +
-                         "(%d, %d), but no creature exists at that spot.",
-                         x, y);
+                         "%s, but no creature exists at that spot.",
+                         position(c));
 
             throw new IllegalArgumentException(msg);
         }
+        if (ticEvent != null) {
+            ticEvent.validation += System.nanoTime() - start;
+        }
     }
 
     /** Method Used only for debugging.
@@ -440,9 +1205,8 @@ public class Grid {
     private void assertQueueCorrect() {
         for (int x = 0; x < n; x++) {
             for (int y = 0; y < n; y++) {
-                Position p = new Position(x, y);
                 Occupant o = getOccupant(x, y);
-                if ((o instanceof Creature) && (!moveQueue.contains(p))) {
+                if ((o instanceof Creature) && (!moveQueue.contains(cell(x, y)))) {
                     throw new IllegalStateException(String.format(
                           "(%d, %d) is missing from moveQueue", x, y));
                 }
@@ -3,6 +3,9 @@ package huglife;
 import creatures.Clorus;
 import creatures.Plip;
 
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.logging.Logger;
 
 /**
@@ -12,11 +15,9 @@ import java.util.logging.Logger;
  */
 public class HugLife {
 
-    // TODO stop when stuck
-
     /**
-     * Size of the world. Probably best to keep this under 100
-     * or so.
+     * Size of worlds read from .world files of the original format,
+     * which don't say. Probably best to keep this under 100 or so.
      */
     public static final int WORLD_SIZE = 15;// 15;
 
@@ -45,11 +46,76 @@ public class HugLife {
      * Number of tics to simulate between draw ops.
      */
     public static final int TICS_BETWEEN_DRAW = 10;
+    /**
+     * Frames drawn per second when running from main.
+     */
+    public static final double TARGET_FPS = 10;
+    /**
+     * Cycles simulated per second when running from main, or 0 to run
+     * as many per frame as the machine can fit. Set a rate to watch a
+     * world at a steady speed.
+     */
+    public static final double CYCLES_PER_SECOND = 0;
+    /**
+     * Tics simulated per second when not simulating by cycle, or 0 to
+     * run as many per frame as the machine can fit.
+     */
+    public static final double TICS_PER_SECOND = 0;
+    /**
+     * Number of threads to simulate cycles with. With more than one,
+     * cycles are run by a TileParallelEngine instead of one creature
+     * at a time.
+     */
+    public static final int PARALLEL_THREADS = 1;
+    /**
+     * If true, the world isn't shown at all and cycles run as fast
+     * as possible, reporting the speed at the end. Also happens
+     * automatically when there is no display.
+     */
+    public static final boolean HEADLESS = false;
+    /**
+     * If true, the world is drawn pixel by pixel into an image
+     * instead of square by square. Use this for big worlds.
+     */
+    public static final boolean RASTER_RENDERING = false;
+    /**
+     * If true, the world is drawn on a thread of its own, which draws
+     * the newest cycle whenever it is done with the previous one. The
+     * simulation then runs without pausing.
+     */
+    public static final boolean ASYNC_RENDERING = false;
+    /**
+     * Whether runs from main end early once the world is stuck, and
+     * how many cycles to wait before calling it stuck.
+     */
+    public static final boolean STOP_WHEN_STUCK = true;
+    public static final int STUCK_PATIENCE = 50;
+    /**
+     * Longest period, in cycles, of repeating worlds that are
+     * recognized as stuck.
+     */
+    public static final int MAX_STUCK_PERIOD = 16;
     private static final Logger logger = Logger.getLogger(HugLife.class.getName());
     /**
      * Grid for holding all the creatures.
      */
     private final Grid g;
+    /**
+     * Runs the cycles of g when simulating by cycle.
+     */
+    private CycleEngine engine = new SequentialEngine();
+    /**
+     * Shows g while simulating.
+     */
+    private Renderer renderer = new StdDrawRenderer(PAUSE_TIME_PER_SIMSTEP);
+    /**
+     * Ends runs early if not null.
+     */
+    private Quiescence quiescence;
+    /**
+     * Why the latest run ended early, or null if it didn't.
+     */
+    private Quiescence.Reason stopReason;
 
     /**
      * Creates a new world grid of size N for this HugLife simulation.
@@ -58,6 +124,41 @@ public class HugLife {
         g = new Grid(n);
     }
 
+    /**
+     * Creates a new world grid of size N whose occupants are kept
+     * in STORAGE.
+     */
+    public HugLife(int n, Grid.Storage storage) {
+        g = new Grid(n, storage);
+    }
+
+    /**
+     * Creates a new world grid of size N whose occupants are kept
+     * in STORAGE, and whose edges are given by TOPOLOGY.
+     */
+    public HugLife(int n, Grid.Storage storage, Grid.Topology topology) {
+        g = new Grid(n, storage, topology, RandomStreams.newSeed());
+    }
+
+    private HugLife(Grid g) {
+        this.g = g;
+    }
+
+    /**
+     * Loads a HugLife from a snapshot FILE written by saveSnapshot. It
+     * continues exactly where the saved one was.
+     */
+    public static HugLife loadSnapshot(Path file) throws IOException {
+        return new HugLife(Snapshot.read(file));
+    }
+
+    /**
+     * Saves the complete state of this world to FILE, see Snapshot.
+     */
+    public void saveSnapshot(Path file) throws IOException {
+        Snapshot.write(g, file);
+    }
+
     /**
      * Reads the world from file with worldName and intialized
      * a HugLife with the contents of the file
@@ -67,36 +168,59 @@ public class HugLife {
      * @return a newly initialized HugLife
      */
     public static HugLife readWorld(String worldName) {
-        var in = new In("huglife/" + worldName + ".world");
-        var h = new HugLife(WORLD_SIZE);
-        while (!in.isEmpty()) {
-            var creature = in.readString();
-            var x = in.readInt();
-            var y = in.readInt();
-            switch (creature) {
-                case "clorus" -> h.addCreature(x, y, new Clorus(1));
-                case "plip" -> h.addCreature(x, y, new Plip());
-                case "samplecreature" -> h.addCreature(x, y, new SampleCreature());
-            }
+        var file = Path.of("huglife/" + worldName + ".world");
+        try {
+            return new HugLife(WorldFile.read(file, WORLD_SIZE));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read " + file, e);
         }
-        return h;
     }
 
     /**
-     * Runs world name specified by ARGS[0].
+     * Runs world name specified by ARGS[0], with the random seed in
+     * ARGS[1] if given. The seed is logged, so any run can be replayed.
      */
     public static void main(String[] args) {
-        if (args.length != 1) {
-            logger.info("Usage: java huglife.HugLife [worldname]");
+        if (args.length != 1 && args.length != 2) {
+            logger.info("Usage: java huglife.HugLife [worldname] [seed]");
             return;
         }
         HugLife h = readWorld(args[0]);
+        if (args.length == 2) {
+            h.setSeed(Long.parseLong(args[1]));
+        }
+        logger.info("Seed: " + h.seed());
         // HugLife h = new HugLife(WORLD_SIZE);
         // h.initialize(args[0]); DON'T USE ME
-        if (SIMULATE_BY_CYCLE) {
-            h.simulate(MAX_CYCLES);
+        TileParallelEngine parallel = PARALLEL_THREADS > 1
+                ? new TileParallelEngine(PARALLEL_THREADS) : null;
+        if (parallel != null) {
+            h.setEngine(parallel);
+        }
+        if (STOP_WHEN_STUCK) {
+            h.setQuiescence(new Quiescence(STUCK_PATIENCE, MAX_STUCK_PERIOD));
+        }
+        // The pacer does the waiting, so renderers shouldn't pause.
+        Renderer renderer;
+        if (ASYNC_RENDERING) {
+            renderer = new AsyncRenderer(new RasterRenderer(1, 0)::draw);
+        } else if (RASTER_RENDERING) {
+            renderer = new RasterRenderer(1, 0);
         } else {
-            h.simulate(MAX_TICS, TICS_BETWEEN_DRAW);
+            renderer = new StdDrawRenderer(0);
+        }
+        h.setRenderer(renderer);
+        try (parallel; renderer) {
+            if (HEADLESS || GraphicsEnvironment.isHeadless()) {
+                logger.info(h.runHeadless(MAX_CYCLES).toString());
+            } else if (SIMULATE_BY_CYCLE) {
+                h.simulate(MAX_CYCLES, new FramePacer(TARGET_FPS, CYCLES_PER_SECOND));
+            } else {
+                h.simulateTics(MAX_TICS, new FramePacer(TARGET_FPS, TICS_PER_SECOND));
+            }
+        }
+        if (h.stopReason() != null) {
+            logger.info("Stopped early: " + h.stopReason());
         }
     }
 
@@ -107,20 +231,139 @@ public class HugLife {
         g.createCreature(x, y, c);
     }
 
+    /**
+     * Returns the seed that all randomness of this world derives from.
+     */
+    public long seed() {
+        return g.seed();
+    }
+
+    /**
+     * Restarts the randomness of this world from SEED.
+     */
+    public void setSeed(long seed) {
+        g.setSeed(seed);
+    }
+
+    /**
+     * Sets the engine used to run cycles by simulate(int).
+     */
+    public void setEngine(CycleEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Sets the renderer that shows the world while simulating.
+     */
+    public void setRenderer(Renderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Makes METRICS count and time what this world does from now on, or
+     * stops if it is null.
+     */
+    public void setMetrics(Metrics metrics) {
+        g.setMetrics(metrics);
+    }
+
+    /**
+     * Makes runs end early once Q finds the world stuck, or never if Q
+     * is null.
+     */
+    public void setQuiescence(Quiescence q) {
+        quiescence = q;
+    }
+
+    /**
+     * Returns why the latest run ended early, or null if it ran for as
+     * long as it was asked to.
+     */
+    public Quiescence.Reason stopReason() {
+        return stopReason;
+    }
+
+    /**
+     * Checks after a cycle whether the world is stuck, and if so
+     * remembers why. Returns true if the run should go on.
+     */
+    private boolean goOn() {
+        if (quiescence != null) {
+            stopReason = quiescence.check(g);
+        }
+        return stopReason == null;
+    }
+
+    /**
+     * Shows the world, timing it if there are metrics.
+     */
+    private void render() {
+        Metrics m = g.metrics();
+        if (m == null) {
+            renderer.render(g);
+            return;
+        }
+        long start = System.nanoTime();
+        renderer.render(g);
+        m.frame().record(System.nanoTime() - start);
+    }
+
     /**
      * Simulates the world for CYCLES cycles, simulation
      * one entire cycle between
      */
     public void simulate(int cycles) {
+        stopReason = null;
         var cycleCount = 0;
         while (cycleCount < cycles) {
-            boolean cycleCompleted = g.tic();
-            if (cycleCompleted) {
-                g.drawWorld();
-                StdDraw.show(PAUSE_TIME_PER_SIMSTEP);
-                cycleCount += 1;
+            engine.cycle(g);
+            render();
+            cycleCount += 1;
+            if (!goOn()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Simulates the world for CYCLES cycles, drawing it at the frame
+     * rate of PACER rather than after every cycle.
+     */
+    public void simulate(int cycles, FramePacer pacer) {
+        stopReason = null;
+        pacer.runWhile(cycles, () -> {
+            engine.cycle(g);
+            return goOn();
+        }, this::render);
+    }
+
+    /**
+     * Simulates the world for TICS tics, drawing it at the frame rate
+     * of PACER.
+     */
+    public void simulateTics(int tics, FramePacer pacer) {
+        stopReason = null;
+        pacer.runWhile(tics, () -> !g.tic() || goOn(), this::render);
+    }
+
+    /**
+     * Simulates the world for CYCLES cycles as fast as possible,
+     * without showing it, and reports how fast that was.
+     */
+    public RunReport runHeadless(int cycles) {
+        stopReason = null;
+        long tics = g.tics();
+        long start = System.nanoTime();
+        int done = 0;
+        while (done < cycles) {
+            engine.cycle(g);
+            done += 1;
+            if (!goOn()) {
+                break;
             }
         }
+        return new RunReport(done, g.tics() - tics, System.nanoTime() - start,
+                             stopReason);
     }
 
     /**
@@ -131,8 +374,7 @@ public class HugLife {
         for (int i = 0; i < tics; i++) {
             g.tic();
             if ((i % ticsBetweenDraw) == 0) {
-                g.drawWorld();
-                StdDraw.show(PAUSE_TIME_PER_SIMSTEP);
+                render();
             }
         }
     }
@@ -1,23 +1,25 @@
 package huglife;
 
 import java.util.List;
-import java.util.Random;
 
 /** Utilities for lab 5
+ *
+ *  Random numbers come from the stream of the world whose creature is
+ *  currently acting (see RandomStreams), so a world replays exactly from
+ *  its seed, on any engine.
  *  @author Josh Hug
  */
 public interface HugLifeUtils {
-    Random r = new Random();
 
     /** Returns a random number uniformly between 0 and 1 */
     static double random() {
-        return r.nextDouble();
+        return RandomStreams.current().nextDouble();
     }
 
     /** Returns a random number uniformly between min and max inclusive
         Stolen from: http://stackoverflow.com/questions/363681 */
     static int randomInt(int min, int max) {
-        return r.nextInt((max - min) + 1) + min;
+        return RandomStreams.current().nextInt((max - min) + 1) + min;
     }
 
     /** Returns a random number uniformly between 0 and max */
@@ -25,9 +27,17 @@ public interface HugLifeUtils {
         return randomInt(0, max);
     }
 
-    /** Returns a random number uniformly between 0 and max */
+    /** Returns a random entry of DIRECTIONS, chosen uniformly */
     static Direction randomEntry(List<Direction> directions) {
         var dirIndex = randomInt(directions.size() - 1);
         return directions.get(dirIndex);
     }
+
+    /** Returns a random member of the DirectionSet DIRECTIONS, chosen
+        uniformly. Makes the same choice as randomEntry(List) would for
+        a list of the same directions in Direction order. */
+    static Direction randomEntry(int directions) {
+        var dirIndex = randomInt(DirectionSet.size(directions) - 1);
+        return DirectionSet.get(directions, dirIndex);
+    }
 }
@@ -3,12 +3,19 @@ package huglife;
 import java.awt.*;
 
 public class Impassible extends Occupant {
+    private static final Color BLACK = color(0, 0, 0);
+
     public Impassible() {
         super(Type.IMPASSABLE);
     }
 
     /** Returns hardcoded black */
     public Color color() {
-        return color(0, 0, 0);
-    }    
+        return BLACK;
+    }
+
+    @Override
+    public int argb() {
+        return 0xFF000000;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package huglife;
+
+import java.util.Arrays;
+
+/** Open addressing hash map from non-negative ints to ints, for sparse
+ *  lookups that must not box or create garbage once it has grown.
+ *  Removal shifts entries back instead of leaving tombstones. */
+final class IntIntMap {
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    IntIntMap() {
+        keys = new int[16];
+        values = new int[16];
+        Arrays.fill(keys, FREE);
+        mask = keys.length - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int home(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /** Returns the value of KEY, or MISSING if it has none. */
+    int get(int key, int missing) {
+        for (int i = home(key); ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == FREE) {
+                return missing;
+            }
+        }
+    }
+
+    /** Sets the value of KEY, which must not be negative. */
+    void put(int key, int value) {
+        int i = home(key);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size += 1;
+        if (size > keys.length / 2) {
+            grow();
+        }
+    }
+
+    /** Removes KEY. Returns false if it had no value. */
+    boolean remove(int key) {
+        int i = home(key);
+        while (keys[i] != key) {
+            if (keys[i] == FREE) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        // Move later entries of the probe run into the hole, if the hole
+        // is between their home and where they are now.
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != FREE; j = (j + 1) & mask) {
+            int h = home(keys[j]);
+            if (((j - h) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = FREE;
+        size -= 1;
+        return true;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
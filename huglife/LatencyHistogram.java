@@ -0,0 +1,100 @@
+package huglife;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Histogram of durations in nanoseconds that any number of threads
+ *  can record into at the cost of a LongAdder increment.
+ *
+ *  Buckets are log-linear, as in HdrHistogram: values below 16 get a
+ *  bucket each, and every power of two above is split into 8 buckets,
+ *  so a reported value is at most 12.5% above the recorded one.
+ */
+public final class LatencyHistogram {
+    /** Bits of a value that pick a sub-bucket within its power of two. */
+    private static final int SUB_BITS = 3;
+    private static final int LINEAR = 1 << (SUB_BITS + 1);
+    private static final int BUCKETS = LINEAR + (63 - SUB_BITS - 1) * (1 << SUB_BITS);
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /** Returns the bucket of NANOS, which must not be negative. */
+    static int bucket(long nanos) {
+        if (nanos < LINEAR) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+        return LINEAR + ((exponent - SUB_BITS - 1) << SUB_BITS) + sub;
+    }
+
+    /** Returns the largest value that falls into bucket B. */
+    static long highestIn(int b) {
+        if (b < LINEAR) {
+            return b;
+        }
+        int exponent = ((b - LINEAR) >>> SUB_BITS) + SUB_BITS + 1;
+        long sub = (b - LINEAR) & ((1 << SUB_BITS) - 1);
+        long lowest = (1L << exponent) + (sub << (exponent - SUB_BITS));
+        return lowest + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    /** Records a duration of NANOS. */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets[bucket(nanos)].increment();
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /** Returns the number of recorded durations. */
+    public long count() {
+        return count.sum();
+    }
+
+    /** Returns the mean duration, 0 if none was recorded. */
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /** Returns the longest duration recorded. */
+    public long max() {
+        return max.get();
+    }
+
+    /** Returns a duration that at least a fraction Q of the recorded
+     *  ones don't exceed, e.g. 0.99 for the 99th percentile. */
+    public long percentile(double q) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return Math.min(highestIn(i), max());
+            }
+        }
+        return max();
+    }
+}
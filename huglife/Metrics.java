@@ -0,0 +1,203 @@
+package huglife;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/** What a Grid has been doing, readable from any thread while it runs.
+ *
+ *  Attach with Grid.setMetrics. The grid then counts the actions it
+ *  handles, keeps the population of each type and the length of the
+ *  move queue, and times tics, cycles, frames and the chooseAction of
+ *  each species. Counters are LongAdders, so that recording costs a few
+ *  nanoseconds even when parallel engines record from many threads.
+ *
+ *  write turns the current values into a CSV row or a JSON line, see
+ *  MetricsExporter for doing that periodically.
+ */
+public final class Metrics {
+    private static final Action.Type[] ACTIONS = Action.Type.values();
+    private static final Occupant.Type[] TYPES = Occupant.Type.values();
+    private static final double[] PERCENTILES = {0.5, 0.99};
+
+    /** Output formats of write. */
+    public enum Format {CSV, JSON}
+
+    private final LongAdder[] actions = new LongAdder[ACTIONS.length];
+    private final AtomicLongArray population = new AtomicLongArray(TYPES.length);
+    private volatile int queueLength;
+    private final LatencyHistogram tic = new LatencyHistogram();
+    private final LatencyHistogram cycle = new LatencyHistogram();
+    private final LatencyHistogram frame = new LatencyHistogram();
+    private final LatencyHistogram[] chooseAction = new LatencyHistogram[TYPES.length];
+    /** Time the last cycle ended, 0 before the first. Owned by the
+     *  simulation thread. */
+    private long lastCycleEnd;
+
+    public Metrics() {
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] = new LongAdder();
+        }
+        for (int i = 0; i < chooseAction.length; i++) {
+            chooseAction[i] = new LatencyHistogram();
+        }
+    }
+
+    /** Returns the number of actions of type T handled. */
+    public long actions(Action.Type t) {
+        return actions[t.ordinal()].sum();
+    }
+
+    /** Returns the number of occupants of type T, not counting empty
+     *  cells or the walls beyond the edge. */
+    public long population(Occupant.Type t) {
+        return population.get(t.ordinal());
+    }
+
+    /** Returns the number of creatures waiting in line, as of the end
+     *  of the last tic. */
+    public int queueLength() {
+        return queueLength;
+    }
+
+    /** Returns the durations of tics, including the handling of the
+     *  action. */
+    public LatencyHistogram tic() {
+        return tic;
+    }
+
+    /** Returns the durations of whole cycles. */
+    public LatencyHistogram cycle() {
+        return cycle;
+    }
+
+    /** Returns the durations of drawing a frame. */
+    public LatencyHistogram frame() {
+        return frame;
+    }
+
+    /** Returns the durations of chooseAction for creatures of type T. */
+    public LatencyHistogram chooseAction(Occupant.Type t) {
+        return chooseAction[t.ordinal()];
+    }
+
+    void action(Action.Type t) {
+        actions[t.ordinal()].increment();
+    }
+
+    void added(Occupant.Type t) {
+        population.incrementAndGet(t.ordinal());
+    }
+
+    void removed(Occupant.Type t) {
+        population.decrementAndGet(t.ordinal());
+    }
+
+    /** Sets the population of type T, when it has been recounted. */
+    void population(Occupant.Type t, long count) {
+        population.set(t.ordinal(), count);
+    }
+
+    void queueLength(int length) {
+        queueLength = length;
+    }
+
+    /** Records that a cycle ended at NOW, as from System.nanoTime. */
+    void cycleEnded(long now) {
+        if (lastCycleEnd != 0) {
+            cycle.record(now - lastCycleEnd);
+        }
+        lastCycleEnd = now;
+    }
+
+    /** Writes the names of the columns of a CSV row, and a newline. */
+    public void writeCsvHeader(Appendable out) throws IOException {
+        out.append("time");
+        for (Action.Type t : ACTIONS) {
+            out.append(",actions.").append(name(t));
+        }
+        for (Occupant.Type t : TYPES) {
+            if (t != Occupant.Type.EMPTY) {
+                out.append(",population.").append(name(t));
+            }
+        }
+        out.append(",queue");
+        histogramHeader(out, "tic");
+        histogramHeader(out, "cycle");
+        histogramHeader(out, "frame");
+        for (Occupant.Type t : TYPES) {
+            if (WorldStore.isCreature(t)) {
+                histogramHeader(out, "chooseAction." + name(t));
+            }
+        }
+        out.append('\n');
+    }
+
+    private static void histogramHeader(Appendable out, String name) throws IOException {
+        out.append(',').append(name).append(".count,")
+           .append(name).append(".mean,");
+        for (double p : PERCENTILES) {
+            out.append(name).append(".p").append(percentileName(p)).append(',');
+        }
+        out.append(name).append(".max");
+    }
+
+    /** Writes the current values, taken at TIMEMILLIS, as a CSV row
+     *  or a JSON object on a line of its own. */
+    public void write(Appendable out, Format format, long timeMillis) throws IOException {
+        boolean json = format == Format.JSON;
+        out.append(json ? "{\"time\":" : "").append(Long.toString(timeMillis));
+        for (Action.Type t : ACTIONS) {
+            value(out, json, "actions." + name(t), actions(t));
+        }
+        for (Occupant.Type t : TYPES) {
+            if (t != Occupant.Type.EMPTY) {
+                value(out, json, "population." + name(t), population(t));
+            }
+        }
+        value(out, json, "queue", queueLength);
+        histogram(out, json, "tic", tic);
+        histogram(out, json, "cycle", cycle);
+        histogram(out, json, "frame", frame);
+        for (Occupant.Type t : TYPES) {
+            if (WorldStore.isCreature(t)) {
+                histogram(out, json, "chooseAction." + name(t), chooseAction(t));
+            }
+        }
+        out.append(json ? "}\n" : "\n");
+    }
+
+    private static void histogram(Appendable out, boolean json, String name,
+                                  LatencyHistogram h) throws IOException {
+        value(out, json, name + ".count", h.count());
+        if (json) {
+            out.append(",\"").append(name).append(".mean\":");
+        } else {
+            out.append(',');
+        }
+        out.append(String.format(Locale.ROOT, "%.1f", h.mean()));
+        for (double p : PERCENTILES) {
+            value(out, json, name + ".p" + percentileName(p), h.percentile(p));
+        }
+        value(out, json, name + ".max", h.max());
+    }
+
+    private static void value(Appendable out, boolean json, String name, long value)
+            throws IOException {
+        if (json) {
+            out.append(",\"").append(name).append("\":");
+        } else {
+            out.append(',');
+        }
+        out.append(Long.toString(value));
+    }
+
+    private static String percentileName(double p) {
+        return Integer.toString((int) Math.round(p * 100));
+    }
+
+    private static String name(Enum<?> e) {
+        return e.name().toLowerCase(Locale.ROOT);
+    }
+}
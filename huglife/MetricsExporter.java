@@ -0,0 +1,69 @@
+package huglife;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/** Appends the values of a Metrics to a file every so often, as CSV
+ *  rows or JSON lines, on a thread of its own. A failed write is logged
+ *  and the next one tried as usual. */
+public class MetricsExporter implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(MetricsExporter.class.getName());
+
+    private final Metrics metrics;
+    private final Metrics.Format format;
+    private final Writer out;
+    private final ScheduledExecutorService timer;
+
+    /** Starts writing METRICS to FILE in FORMAT every PERIODMILLIS
+     *  milliseconds, replacing what FILE held. */
+    public MetricsExporter(Metrics metrics, Path file, Metrics.Format format,
+                           long periodMillis) throws IOException {
+        this.metrics = metrics;
+        this.format = format;
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        if (format == Metrics.Format.CSV) {
+            metrics.writeCsvHeader(out);
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "HugLife metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleAtFixedRate(this::export, periodMillis, periodMillis,
+                                  TimeUnit.MILLISECONDS);
+    }
+
+    /** Writes the current values. Doesn't throw, as the timer would
+     *  cancel all later exports if it did. */
+    private synchronized void export() {
+        try {
+            metrics.write(out, format, System.currentTimeMillis());
+            out.flush();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not export metrics", e);
+        }
+    }
+
+    /** Writes the final values and stops. */
+    @Override
+    public void close() throws IOException {
+        timer.shutdown();
+        try {
+            timer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            metrics.write(out, format, System.currentTimeMillis());
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package huglife;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/** FIFO of cells waiting for their turn to act.
+ *
+ *  Cells are packed int ids (see Grid), stored in a power of two ring.
+ *  Every queued cell remembers its ring slot, so membership and removal
+ *  are constant time: removal just leaves a tombstone behind, which is
+ *  skipped when it reaches the head, or squeezed out when the ring would
+ *  otherwise have to grow.
+ *
+ *  Slots are kept in an array indexed by cell, or for huge sparse worlds
+ *  where that array wouldn't fit, in a hash map.
+ *
+ *  The SENTINEL is not a cell, it can be queued any number of times and
+ *  is never tracked by contains or remove.
+ */
+class MoveQueue {
+    /** Marker that Grid uses to find the end of a cycle. */
+    static final int SENTINEL = -1;
+    /** Left in the ring by removed cells. */
+    private static final int TOMBSTONE = -2;
+    /** Slot value for cells that are not in line. */
+    private static final int NOT_QUEUED = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    /** Ring of cell ids, SENTINELs and TOMBSTONEs. */
+    private int[] ring;
+    /** ring.length - 1 */
+    private int mask;
+    /** Counters, taken modulo the ring length. tail - head is the used length. */
+    private int head;
+    private int tail;
+    /** Number of tombstones between head and tail. */
+    private int tombstones;
+    /** Ring index of each queued cell, NOT_QUEUED otherwise. */
+    private final int[] slot;
+    /** Ring index of each queued cell, used instead of slot if that is null. */
+    private final IntIntMap sparseSlot;
+
+    /** Creates an empty queue for cell ids in [0, CELLS). */
+    MoveQueue(int cells) {
+        slot = new int[cells];
+        Arrays.fill(slot, NOT_QUEUED);
+        sparseSlot = null;
+        ring = new int[MIN_CAPACITY];
+        mask = ring.length - 1;
+    }
+
+    private MoveQueue() {
+        slot = null;
+        sparseSlot = new IntIntMap();
+        ring = new int[MIN_CAPACITY];
+        mask = ring.length - 1;
+    }
+
+    /** Creates an empty queue for any cell ids, using memory only for the
+     *  cells in line. */
+    static MoveQueue sparse() {
+        return new MoveQueue();
+    }
+
+    private int slotOf(int cell) {
+        return slot != null ? slot[cell] : sparseSlot.get(cell, NOT_QUEUED);
+    }
+
+    private void setSlot(int cell, int i) {
+        if (slot != null) {
+            slot[cell] = i;
+        } else if (i == NOT_QUEUED) {
+            sparseSlot.remove(cell);
+        } else {
+            sparseSlot.put(cell, i);
+        }
+    }
+
+    /** Number of entries in line, counting sentinels but not tombstones. */
+    int size() {
+        return tail - head - tombstones;
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Returns true if CELL is in line. */
+    boolean contains(int cell) {
+        return slotOf(cell) != NOT_QUEUED;
+    }
+
+    /** Puts CELL (or the SENTINEL) at the end of the line. Callers
+     *  are responsible for not queueing the same cell twice. */
+    void add(int cell) {
+        if (tail - head == ring.length) {
+            makeRoom();
+        }
+        int i = tail & mask;
+        ring[i] = cell;
+        if (cell != SENTINEL) {
+            setSlot(cell, i);
+        }
+        tail += 1;
+    }
+
+    /** Removes and returns the entry at the front of the line. */
+    int remove() {
+        while (head != tail) {
+            int i = head & mask;
+            int cell = ring[i];
+            head += 1;
+            if (cell == TOMBSTONE) {
+                tombstones -= 1;
+                continue;
+            }
+            if (cell != SENTINEL) {
+                setSlot(cell, NOT_QUEUED);
+            }
+            return cell;
+        }
+        throw new NoSuchElementException("Move queue is empty.");
+    }
+
+    /** Takes everything out of line. */
+    void clear() {
+        for (int k = head; k != tail; k++) {
+            int cell = ring[k & mask];
+            if (cell >= 0) {
+                setSlot(cell, NOT_QUEUED);
+            }
+        }
+        head = 0;
+        tail = 0;
+        tombstones = 0;
+    }
+
+    /** Returns the entries in line, from front to back. */
+    int[] toArray() {
+        int[] entries = new int[size()];
+        int j = 0;
+        for (int k = head; k != tail; k++) {
+            int cell = ring[k & mask];
+            if (cell != TOMBSTONE) {
+                entries[j++] = cell;
+            }
+        }
+        return entries;
+    }
+
+    /** Takes CELL out of line. Returns false if it was not in line. */
+    boolean remove(int cell) {
+        int i = slotOf(cell);
+        if (i == NOT_QUEUED) {
+            return false;
+        }
+        ring[i] = TOMBSTONE;
+        setSlot(cell, NOT_QUEUED);
+        tombstones += 1;
+        return true;
+    }
+
+    /** Called when the ring is full: squeezes out the tombstones, and
+     *  doubles the ring unless that freed at least a quarter of it. */
+    private void makeRoom() {
+        int live = size();
+        int capacity = ring.length;
+        if (live > capacity - capacity / 4) {
+            capacity *= 2;
+        }
+        int[] compacted = new int[capacity];
+        int j = 0;
+        for (int k = head; k != tail; k++) {
+            int cell = ring[k & mask];
+            if (cell == TOMBSTONE) {
+                continue;
+            }
+            compacted[j] = cell;
+            if (cell != SENTINEL) {
+                setSlot(cell, j);
+            }
+            j += 1;
+        }
+        ring = compacted;
+        mask = capacity - 1;
+        head = 0;
+        tail = j;
+        tombstones = 0;
+    }
+}
@@ -0,0 +1,94 @@
+package huglife;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/** The four neighbors of the cell a creature is deciding for.
+ *
+ *  Grid reuses one view for every decision and refills it before each
+ *  call to Creature.chooseAction, so creatures must not hold on to it.
+ *  None of the queries below allocate.
+ */
+public final class NeighborView {
+    /** All directions, in order. Direction.values() returns a new copy
+      * on every call. */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** Occupant in each direction, by Direction ordinal. */
+    private final Occupant[] occupants = new Occupant[DIRECTIONS.length];
+    /** DirectionSet of each Occupant.Type, by ordinal. */
+    private final int[] masks = new int[Occupant.Type.values().length];
+
+    NeighborView() {
+    }
+
+    /** Returns a new view of the NEIGHBORS in a map. Directions missing
+     *  from the map are treated as impassible. */
+    public static NeighborView of(Map<Direction, Occupant> neighbors) {
+        NeighborView view = new NeighborView();
+        for (Direction d : DIRECTIONS) {
+            Occupant o = neighbors.get(d);
+            view.set(d, o == null ? WorldStore.IMPASSIBLE : o);
+        }
+        return view;
+    }
+
+    /** Refills this view with TOP, BOTTOM, LEFT and RIGHT. */
+    void set(Occupant top, Occupant bottom, Occupant left, Occupant right) {
+        for (int t = 0; t < masks.length; t++) {
+            masks[t] = 0;
+        }
+        set(Direction.TOP, top);
+        set(Direction.BOTTOM, bottom);
+        set(Direction.LEFT, left);
+        set(Direction.RIGHT, right);
+    }
+
+    private void set(Direction d, Occupant o) {
+        occupants[d.ordinal()] = o;
+        masks[o.getType().ordinal()] |= DirectionSet.of(d);
+    }
+
+    /** Returns the occupant in direction D. */
+    public Occupant get(Direction d) {
+        return occupants[d.ordinal()];
+    }
+
+    /** Returns the type of the occupant in direction D. */
+    public Occupant.Type type(Direction d) {
+        return occupants[d.ordinal()].getType();
+    }
+
+    /** Returns true if the occupant in direction D is of type T. */
+    public boolean is(Direction d, Occupant.Type t) {
+        return DirectionSet.contains(masks[t.ordinal()], d);
+    }
+
+    /** Returns the DirectionSet of directions holding occupants
+     *  of type T. */
+    public int mask(Occupant.Type t) {
+        return masks[t.ordinal()];
+    }
+
+    /** Returns the number of neighbors of type T. */
+    public int count(Occupant.Type t) {
+        return Integer.bitCount(masks[t.ordinal()]);
+    }
+
+    /** Returns the directions holding occupants of type T, as a shared
+     *  unmodifiable list in Direction order. Kept for old code; mask(T)
+     *  is cheaper to work with. */
+    public List<Direction> directions(Occupant.Type t) {
+        return DirectionSet.toList(masks[t.ordinal()]);
+    }
+
+    /** Returns a new map holding the same neighbors. */
+    public Map<Direction, Occupant> toMap() {
+        EnumMap<Direction, Occupant> map = new EnumMap<>(Direction.class);
+        for (Direction d : DIRECTIONS) {
+            map.put(d, occupants[d.ordinal()]);
+        }
+        return map;
+    }
+}
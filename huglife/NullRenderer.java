@@ -0,0 +1,10 @@
+package huglife;
+
+/** Shows nothing, for batch runs. Never touches StdDraw, so no window
+ *  or display is needed. */
+public class NullRenderer implements Renderer {
+
+    @Override
+    public void render(Grid g) {
+    }
+}
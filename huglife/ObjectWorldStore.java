@@ -0,0 +1,49 @@
+package huglife;
+
+import java.util.Arrays;
+
+/** The classic store: one Occupant reference per cell. */
+class ObjectWorldStore implements WorldStore {
+    private final Occupant[] occupants;
+
+    ObjectWorldStore(int cells) {
+        occupants = new Occupant[cells];
+        Arrays.fill(occupants, EMPTY);
+    }
+
+    @Override
+    public Occupant get(int cell) {
+        return occupants[cell];
+    }
+
+    @Override
+    public Occupant.Type type(int cell) {
+        return occupants[cell].getType();
+    }
+
+    @Override
+    public double energy(int cell) {
+        Occupant o = occupants[cell];
+        return (o instanceof Creature) ? ((Creature) o).energy() : 0;
+    }
+
+    @Override
+    public void put(int cell, Occupant o) {
+        occupants[cell] = o;
+    }
+
+    @Override
+    public void clear(int cell) {
+        occupants[cell] = EMPTY;
+    }
+
+    @Override
+    public void move(int from, int to) {
+        occupants[to] = occupants[from];
+        occupants[from] = EMPTY;
+    }
+
+    @Override
+    public void refresh(int cell) {
+    }
+}
@@ -33,6 +33,21 @@ public abstract class Occupant {
         return new Color(r, g, b);
     }
 
+    /** Returns the packed ARGB value of R, G and B, without creating
+     *  a Color. */
+    protected static int argb(int r, int g, int b) {
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
     /** Required method that returns a color. */
     public abstract Color color();
+
+    /** Returns the color as a packed ARGB value, which is what the
+     *  renderers draw with. Override this together with color() to
+     *  draw without creating garbage, e.g. by looking the color up in
+     *  a ColorRamp.
+     */
+    public int argb() {
+        return color().getRGB();
+    }
 }
@@ -0,0 +1,141 @@
+package huglife;
+
+import java.util.Arrays;
+
+/** Struct-of-arrays store. Every cell costs one byte of type plus one
+ *  int of creature slot, empties and walls are not objects at all.
+ *
+ *  Living things sit in a dense creature table (energy, cell and the
+ *  Creature itself, which holds the species state and keeps existing
+ *  subclasses working). The energy column mirrors Creature.energy() and
+ *  is brought up to date by refresh, so that scans over the world
+ *  never have to chase creature pointers.
+ */
+class PackedWorldStore implements WorldStore {
+    private static final Occupant.Type[] TYPES = Occupant.Type.values();
+    private static final byte EMPTY = (byte) Occupant.Type.EMPTY.ordinal();
+    private static final int NO_SLOT = -1;
+
+    /** Occupant.Type ordinal of every cell. */
+    private final byte[] types;
+    /** Creature table slot of every cell, NO_SLOT if not a creature. */
+    private final int[] slotOf;
+
+    /** The creature table, indexed by slot. */
+    private Creature[] creatures;
+    private double[] energies;
+    /** Free slots below top, as a stack. */
+    private int[] free;
+    private int freeCount;
+    /** Slots at or above top have never been handed out. */
+    private int top;
+
+    PackedWorldStore(int cells) {
+        types = new byte[cells];
+        slotOf = new int[cells];
+        Arrays.fill(slotOf, NO_SLOT);
+        creatures = new Creature[16];
+        energies = new double[16];
+        free = new int[16];
+    }
+
+    @Override
+    public Occupant get(int cell) {
+        int slot = slotOf[cell];
+        if (slot != NO_SLOT) {
+            return creatures[slot];
+        }
+        return types[cell] == EMPTY ? WorldStore.EMPTY : IMPASSIBLE;
+    }
+
+    @Override
+    public Occupant.Type type(int cell) {
+        return TYPES[types[cell]];
+    }
+
+    @Override
+    public double energy(int cell) {
+        int slot = slotOf[cell];
+        return slot == NO_SLOT ? 0 : energies[slot];
+    }
+
+    @Override
+    public void put(int cell, Occupant o) {
+        release(cell);
+        types[cell] = (byte) o.getType().ordinal();
+        if (o instanceof Creature) {
+            Creature c = (Creature) o;
+            int slot = allocate();
+            creatures[slot] = c;
+            energies[slot] = c.energy();
+            slotOf[cell] = slot;
+        }
+    }
+
+    @Override
+    public void clear(int cell) {
+        release(cell);
+        types[cell] = EMPTY;
+    }
+
+    @Override
+    public void move(int from, int to) {
+        release(to);
+        int slot = slotOf[from];
+        types[to] = types[from];
+        slotOf[to] = slot;
+        types[from] = EMPTY;
+        slotOf[from] = NO_SLOT;
+    }
+
+    @Override
+    public void refresh(int cell) {
+        int slot = slotOf[cell];
+        if (slot != NO_SLOT) {
+            energies[slot] = creatures[slot].energy();
+        }
+    }
+
+    /** Grows the creature table up front, so that it is never copied
+     *  while other threads use it. */
+    @Override
+    public synchronized void reserve(int extra) {
+        int needed = top - freeCount + extra;
+        if (needed > creatures.length) {
+            grow(Integer.highestOneBit(needed) * 2);
+        }
+    }
+
+    /** Frees the creature slot of CELL, if any. */
+    private void release(int cell) {
+        int slot = slotOf[cell];
+        if (slot != NO_SLOT) {
+            slotOf[cell] = NO_SLOT;
+            free(slot);
+        }
+    }
+
+    private synchronized int allocate() {
+        if (freeCount > 0) {
+            freeCount -= 1;
+            return free[freeCount];
+        }
+        if (top == creatures.length) {
+            grow(creatures.length * 2);
+        }
+        top += 1;
+        return top - 1;
+    }
+
+    private void grow(int capacity) {
+        creatures = Arrays.copyOf(creatures, capacity);
+        energies = Arrays.copyOf(energies, capacity);
+        free = Arrays.copyOf(free, capacity);
+    }
+
+    private synchronized void free(int slot) {
+        creatures[slot] = null;
+        free[freeCount] = slot;
+        freeCount += 1;
+    }
+}
@@ -0,0 +1,30 @@
+package huglife;
+
+import java.awt.*;
+
+/** Cache of Color objects by packed ARGB value, for drawing through
+ *  StdDraw, which wants a Color per pen change.
+ *
+ *  Direct mapped: a miss replaces whatever shared its slot. Species use
+ *  a bounded number of colors, so in practice almost every lookup hits
+ *  and drawing a cell creates no garbage. Colors are immutable, so a
+ *  racing reader can at worst see a miss.
+ */
+final class Palette {
+    private static final int SLOTS = 4096;
+    private static final Color[] CACHE = new Color[SLOTS];
+
+    private Palette() {
+    }
+
+    /** Returns a Color with the packed ARGB value ARGB. */
+    static Color color(int argb) {
+        int slot = (argb * 0x9E3779B9) >>> 20;
+        Color c = CACHE[slot];
+        if (c == null || c.getRGB() != argb) {
+            c = new Color(argb, true);
+            CACHE[slot] = c;
+        }
+        return c;
+    }
+}
@@ -0,0 +1,80 @@
+package huglife;
+
+/** Tells when a world has stopped going anywhere, so that a run can
+ *  end early.
+ *
+ *  Call check after every cycle. A world is stuck when everything has
+ *  died, when PATIENCE cycles in a row did nothing but change energies
+ *  (everything stayed), or when it has been repeating itself with a
+ *  period of at most MAXPERIOD cycles for PATIENCE cycles, and at least
+ *  twice over.
+ *
+ *  All of this costs a few comparisons per cycle: the grid keeps track
+ *  of whether a cycle changed anything and of the hash of the world at
+ *  the end of every cycle, and for every period this keeps count of how
+ *  many cycles in a row had the same hash as that many cycles before.
+ *  The hash covers energies only to within Grid.ENERGY_QUANTUM, which
+ *  is what the patience is for.
+ */
+public final class Quiescence {
+    /** Why a world is stuck. */
+    public enum Reason {
+        /** No creature is left. */
+        EXTINCT,
+        /** Creatures only stay, changing nothing but their energies. */
+        STATIC,
+        /** The same worlds keep coming back in the same order. */
+        RECURRING
+    }
+
+    private final int patience;
+    /** Hashes of the latest cycles, by cycle modulo length. */
+    private final long[] history;
+    /** For each period p, cycles in a row whose hash was the same
+     *  as p cycles before. */
+    private final int[] repeats;
+    private long cycles;
+    private int unchanged;
+
+    /** Creates a detector that waits PATIENCE cycles before calling a
+     *  world static or recurring, and looks for periods of up to
+     *  MAXPERIOD cycles. */
+    public Quiescence(int patience, int maxPeriod) {
+        if (patience < 1 || maxPeriod < 1) {
+            throw new IllegalArgumentException("Patience and period must "
+                                               + "be positive.");
+        }
+        this.patience = patience;
+        this.history = new long[maxPeriod + 1];
+        this.repeats = new int[maxPeriod + 1];
+    }
+
+    /** Looks at G after a cycle, and returns why it is stuck, or null
+     *  if it isn't. */
+    public Reason check(Grid g) {
+        if (g.population() == 0) {
+            return Reason.EXTINCT;
+        }
+        unchanged = g.lastCycleMutated() ? 0 : unchanged + 1;
+        if (unchanged >= patience) {
+            return Reason.STATIC;
+        }
+
+        long hash = g.cycleHash();
+        int length = history.length;
+        Reason reason = null;
+        for (int p = 1; p < length && p <= cycles; p++) {
+            if (history[(int) ((cycles - p) % length)] == hash) {
+                repeats[p] += 1;
+                if (repeats[p] >= Math.max(patience, 2 * p)) {
+                    reason = Reason.RECURRING;
+                }
+            } else {
+                repeats[p] = 0;
+            }
+        }
+        history[(int) (cycles % length)] = hash;
+        cycles += 1;
+        return reason;
+    }
+}
@@ -0,0 +1,66 @@
+package huglife;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Decides which random stream HugLifeUtils draws from on each thread.
+ *
+ *  Every Grid owns a stream seeded from its world seed and makes it the
+ *  current one while its creatures act, so a recorded seed replays a
+ *  run exactly and separate worlds never share random state. Engines
+ *  that run creatures on several threads key further streams off the
+ *  world seed, per tile or per cell, see TileParallelEngine.
+ *
+ *  Outside of a Grid, for example when a test calls chooseAction
+ *  directly, each thread draws from a fallback stream of its own.
+ */
+final class RandomStreams {
+    /** Source of fresh seeds for worlds that weren't given one. */
+    private static final AtomicLong SEEDER = new AtomicLong(System.nanoTime());
+
+    /** The current and the fallback stream of one thread. */
+    private static final class Active {
+        final SplitMix fallback = new SplitMix(newSeed());
+        SplitMix stream = fallback;
+    }
+
+    private static final ThreadLocal<Active> ACTIVE =
+            ThreadLocal.withInitial(Active::new);
+
+    private RandomStreams() {
+    }
+
+    /** Returns the stream for the calling thread. */
+    static SplitMix current() {
+        return ACTIVE.get().stream;
+    }
+
+    /** Makes the calling thread draw from STREAM, or from its fallback
+     *  stream if STREAM is null. Returns the stream it drew from so far,
+     *  so callers can put it back when they are done. */
+    static SplitMix use(SplitMix stream) {
+        Active a = ACTIVE.get();
+        SplitMix previous = a.stream;
+        a.stream = stream != null ? stream : a.fallback;
+        return previous;
+    }
+
+    /** Returns a seed that no other call has returned. */
+    static long newSeed() {
+        return SplitMix.mix(SEEDER.addAndGet(SplitMix.GOLDEN));
+    }
+
+    /** Returns the seed of the stream keyed K under SEED. */
+    static long seed(long seed, long k) {
+        return SplitMix.mix(seed + SplitMix.GOLDEN * SplitMix.mix(k + SplitMix.GOLDEN));
+    }
+
+    /** Returns the seed of the stream keyed K1, K2 under SEED. */
+    static long seed(long seed, long k1, long k2) {
+        return seed(seed(seed, k1), k2);
+    }
+
+    /** Returns the seed of the stream keyed K1, K2, K3 under SEED. */
+    static long seed(long seed, long k1, long k2, long k3) {
+        return seed(seed(seed(seed, k1), k2), k3);
+    }
+}
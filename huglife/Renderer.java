@@ -0,0 +1,15 @@
+package huglife;
+
+/** Shows a Grid to someone, or to something. HugLife calls render after
+ *  every cycle, or every few tics, of a simulation. */
+public interface Renderer extends AutoCloseable {
+
+    /** Shows the current state of G. */
+    void render(Grid g);
+
+    /** Called once the simulation is over. Renderers that hold on to
+     *  threads or windows let go of them here. Does nothing by default. */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,127 @@
+package huglife;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** Runs cycles from an ActionJournal instead of simulating them.
+ *
+ *  Creatures are never asked for an action: the recorded action is
+ *  applied and the recorded energies are restored, which is much faster
+ *  than simulating. To get to a cycle, the engine starts from the
+ *  latest keyframe before it and replays from there.
+ *
+ *  Cosmetic state that creatures change at random without it affecting
+ *  their energy, like the red of a SampleCreature, is only exact at
+ *  keyframes.
+ */
+public class ReplayEngine implements CycleEngine {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Action.Type[] TYPES = Action.Type.values();
+
+    private final Path dir;
+    /** Records of the current segment, and the cycle its keyframe has. */
+    private ByteBuffer records;
+    private long segment = -1;
+
+    /** Creates an engine that replays the journal in directory DIR. */
+    public ReplayEngine(Path dir) {
+        this.dir = dir;
+    }
+
+    /** Returns the world as it was after CYCLE journaled cycles. */
+    public Grid seek(long cycle) throws IOException {
+        long start = -1;
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String name = p.getFileName().toString();
+                if (name.endsWith(ActionJournal.KEYFRAME)) {
+                    long c = Long.parseLong(name.substring(0, name.length()
+                                            - ActionJournal.KEYFRAME.length()));
+                    if (c <= cycle && c > start) {
+                        start = c;
+                    }
+                }
+            }
+        }
+        if (start < 0) {
+            throw new IOException(dir + " has no keyframe for cycle " + cycle);
+        }
+        Grid g = Snapshot.read(dir.resolve(ActionJournal.segment(start, ActionJournal.KEYFRAME)));
+        open(start);
+        for (long c = start; c < cycle; c++) {
+            cycle(g);
+        }
+        return g;
+    }
+
+    private void open(long cycle) throws IOException {
+        Path file = dir.resolve(ActionJournal.segment(cycle, ActionJournal.LOG));
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            records = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size())
+                        .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        segment = cycle;
+    }
+
+    /** Replays the next journaled cycle on G, which must be the grid
+     *  returned by seek. */
+    @Override
+    public void cycle(Grid g) {
+        if (records == null) {
+            throw new IllegalStateException("Call seek before replaying cycles.");
+        }
+        int n = g.size();
+        while (true) {
+            if (!records.hasRemaining()) {
+                throw new IllegalStateException("Journal ends before cycle is complete.");
+            }
+            byte tag = records.get();
+            if (tag == ActionJournal.END_OF_CYCLE) {
+                g.replayEndOfCycle();
+                break;
+            }
+            Action.Type type = TYPES[tag & 7];
+            int dir = (tag >> 3) & 7;
+            int cell = records.getInt();
+            Action a;
+            if (type == Action.Type.STAY || type == Action.Type.DIE) {
+                a = Action.of(type);
+            } else if (dir == ActionJournal.ABSOLUTE) {
+                int target = records.getInt();
+                a = new Action(type, target % n, target / n);
+            } else {
+                a = Action.of(type, DIRECTIONS[dir]);
+            }
+            double energy = type == Action.Type.DIE ? 0 : records.getDouble();
+            double child = type == Action.Type.REPLICATE ? records.getDouble() : 0;
+            g.replayTic(cell, a, energy, child);
+        }
+        nextSegmentIfDone();
+    }
+
+    /** Moves on to the next segment once this one is used up, if the
+     *  journal has one. */
+    private void nextSegmentIfDone() {
+        if (records.hasRemaining()) {
+            return;
+        }
+        try (var files = Files.list(dir)) {
+            long next = files.map(p -> p.getFileName().toString())
+                             .filter(s -> s.endsWith(ActionJournal.LOG))
+                             .mapToLong(s -> Long.parseLong(s.substring(0, s.length()
+                                                            - ActionJournal.LOG.length())))
+                             .filter(c -> c > segment).min().orElse(-1);
+            if (next >= 0) {
+                open(next);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package huglife;
+
+/** How much work a headless run did and how fast. */
+public class RunReport {
+    private final long cycles;
+    private final long tics;
+    private final long nanos;
+    private final Quiescence.Reason stopReason;
+
+    /** Creates a report of CYCLES cycles and TICS tics in NANOS ns. */
+    public RunReport(long cycles, long tics, long nanos) {
+        this(cycles, tics, nanos, null);
+    }
+
+    /** Same, for a run that ended early because of STOPREASON, unless
+     *  that is null. */
+    public RunReport(long cycles, long tics, long nanos,
+                     Quiescence.Reason stopReason) {
+        this.cycles = cycles;
+        this.tics = tics;
+        this.nanos = nanos;
+        this.stopReason = stopReason;
+    }
+
+    /** Returns the number of cycles run. */
+    public long cycles() {
+        return cycles;
+    }
+
+    /** Returns the number of creature actions taken. */
+    public long tics() {
+        return tics;
+    }
+
+    /** Returns the wall clock time taken, in nanoseconds. */
+    public long nanos() {
+        return nanos;
+    }
+
+    /** Returns why the run ended early, or null if it didn't. */
+    public Quiescence.Reason stopReason() {
+        return stopReason;
+    }
+
+    public double cyclesPerSecond() {
+        return cycles * 1e9 / Math.max(nanos, 1);
+    }
+
+    public double ticsPerSecond() {
+        return tics * 1e9 / Math.max(nanos, 1);
+    }
+
+    @Override
+    public String toString() {
+        String s = String.format("%d cycles, %d tics in %.3f s: %.1f cycles/s, "
+                                 + "%.1f tics/s", cycles, tics, nanos / 1e9,
+                                 cyclesPerSecond(), ticsPerSecond());
+        return stopReason == null ? s : s + ", stopped early: " + stopReason;
+    }
+}
@@ -1,7 +1,6 @@
 package huglife;
 
 import java.awt.*;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -81,6 +80,29 @@ public class SampleCreature extends Creature {
         return color(r, g, b);
     }
 
+    /**
+     * Same as color, without creating a Color.
+     */
+    @Override
+    public int argb() {
+        return argb(r, g, b);
+    }
+
+    /**
+     * Packs the current colors and wall flag for snapshots.
+     */
+    @Override
+    protected long saveState() {
+        return (long) r << 16 | (long) g << 8 | (reactOnWall ? 1 : 0);
+    }
+
+    @Override
+    protected void restoreState(long state) {
+        r = (int) (state >>> 16) & 0xFF;
+        g = (int) (state >>> 8) & 0xFF;
+        reactOnWall = (state & 1) != 0;
+    }
+
     /**
      * Do nothing, SampleCreatures are pacifists and won't pick this
      * action anyway. C is safe, for now.
@@ -128,6 +150,11 @@ public class SampleCreature extends Creature {
      * Returns the action selected.
      */
     public Action chooseAction(Map<Direction, Occupant> neighbors) {
+        return chooseAction(NeighborView.of(neighbors));
+    }
+
+    @Override
+    public Action chooseAction(NeighborView neighbors) {
 
 //        return chooseOriginalSampleCreature(neighbors);
 
@@ -136,76 +163,76 @@ public class SampleCreature extends Creature {
 //        return chooseMoveAwayFromWall(neighbors);
     }
 
-    private Action chooseOriginalSampleCreature(Map<Direction, Occupant> neighbors) {
+    private Action chooseOriginalSampleCreature(NeighborView neighbors) {
 
-        List<Direction> empties = getNeighborsOfType(neighbors, Occupant.Type.EMPTY);
-        if (empties.size() == 1) {
-            Direction moveDir = empties.get(0);
-            return new Action(Action.Type.MOVE, moveDir);
+        int empties = neighbors.mask(Occupant.Type.EMPTY);
+        if (DirectionSet.size(empties) == 1) {
+            Direction moveDir = DirectionSet.get(empties, 0);
+            return Action.of(Action.Type.MOVE, moveDir);
         }
 
-        if (empties.size() > 1 && HugLifeUtils.random() < MOVE_PROBABILITY) {
+        if (DirectionSet.size(empties) > 1 && HugLifeUtils.random() < MOVE_PROBABILITY) {
             Direction moveDir = HugLifeUtils.randomEntry(empties);
-            return new Action(Action.Type.MOVE, moveDir);
+            return Action.of(Action.Type.MOVE, moveDir);
         }
 
-        return new Action(Action.Type.STAY);
+        return Action.of(Action.Type.STAY);
     }
 
-    private Action chooseReplicateOnWall(Map<Direction, Occupant> neighbors) {
-        List<Direction> empties = getNeighborsOfType(neighbors, Occupant.Type.EMPTY);
-        if (empties.size() == 1) {
-            Direction moveDir = empties.get(0);
-            return new Action(Action.Type.MOVE, moveDir);
+    private Action chooseReplicateOnWall(NeighborView neighbors) {
+        int empties = neighbors.mask(Occupant.Type.EMPTY);
+        if (DirectionSet.size(empties) == 1) {
+            Direction moveDir = DirectionSet.get(empties, 0);
+            return Action.of(Action.Type.MOVE, moveDir);
         }
 
         // Die in corner (balances well the replication in 'small' worlds:
         // n~15, if solo
         // n~much greater with plips, cos not enough space & die outweighs the replication)
         // n~15 with plips & cloruses - nice
-        List<Direction> walls = getNeighborsOfType(neighbors, Occupant.Type.IMPASSABLE);
-        if (walls.size() > 1) {
-            return new Action(Action.Type.DIE);
+        int walls = neighbors.mask(Occupant.Type.IMPASSABLE);
+        if (DirectionSet.size(walls) > 1) {
+            return Action.of(Action.Type.DIE);
         }
 
         // Replicate on wall
-        if (!walls.isEmpty() && !empties.isEmpty()) {
+        if (!DirectionSet.isEmpty(walls) && !DirectionSet.isEmpty(empties)) {
             Direction moveDir = HugLifeUtils.randomEntry(empties);
-            return new Action(Action.Type.REPLICATE, moveDir);
+            return Action.of(Action.Type.REPLICATE, moveDir);
         }
 
-        if (empties.size() > 1 && HugLifeUtils.random() < MOVE_PROBABILITY) {
+        if (DirectionSet.size(empties) > 1 && HugLifeUtils.random() < MOVE_PROBABILITY) {
             Direction moveDir = HugLifeUtils.randomEntry(empties);
-            return new Action(Action.Type.MOVE, moveDir);
+            return Action.of(Action.Type.MOVE, moveDir);
         }
 
-        return new Action(Action.Type.STAY);
+        return Action.of(Action.Type.STAY);
     }
 
-    private Action chooseMoveAwayFromWall(Map<Direction, Occupant> neighbors) {
+    private Action chooseMoveAwayFromWall(NeighborView neighbors) {
 
-        List<Direction> empties = getNeighborsOfType(neighbors, Occupant.Type.EMPTY);
-        if (empties.size() == 1) {
-            Direction moveDir = empties.get(0);
-            return new Action(Action.Type.MOVE, moveDir);
+        int empties = neighbors.mask(Occupant.Type.EMPTY);
+        if (DirectionSet.size(empties) == 1) {
+            Direction moveDir = DirectionSet.get(empties, 0);
+            return Action.of(Action.Type.MOVE, moveDir);
         }
 
         // move away from wall and change color
-        List<Direction> walls = getNeighborsOfType(neighbors, Occupant.Type.IMPASSABLE);
-        if (walls.size() == 1) {
-            Direction away = walls.get(0).reverse();
-            if (empties.contains(away)) {
+        int walls = neighbors.mask(Occupant.Type.IMPASSABLE);
+        if (DirectionSet.size(walls) == 1) {
+            Direction away = DirectionSet.get(walls, 0).reverse();
+            if (neighbors.is(away, Occupant.Type.EMPTY)) {
                 reactOnWall = true;
-                return new Action(Action.Type.MOVE, away);
+                return Action.of(Action.Type.MOVE, away);
             }
         }
 
-        if (empties.size() > 1 && HugLifeUtils.random() < MOVE_PROBABILITY) {
+        if (DirectionSet.size(empties) > 1 && HugLifeUtils.random() < MOVE_PROBABILITY) {
             Direction moveDir = HugLifeUtils.randomEntry(empties);
-            return new Action(Action.Type.MOVE, moveDir);
+            return Action.of(Action.Type.MOVE, moveDir);
         }
 
-        return new Action(Action.Type.STAY);
+        return Action.of(Action.Type.STAY);
     }
 
     /**
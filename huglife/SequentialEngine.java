@@ -0,0 +1,13 @@
+package huglife;
+
+/** The classic engine: one creature at a time, in move queue order,
+ *  via Grid.tic. */
+public class SequentialEngine implements CycleEngine {
+
+    @Override
+    public void cycle(Grid g) {
+        while (!g.tic()) {
+            continue;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package huglife;
+
+import creatures.Clorus;
+import creatures.Plip;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.DoubleFunction;
+
+/** The occupant types that files may name, and how to recreate them. */
+final class Species {
+    private static final Occupant.Type[] TYPES = Occupant.Type.values();
+
+    /** How to create a creature of each type with a given energy. */
+    private static final Map<Occupant.Type, DoubleFunction<Creature>> CREATORS =
+            new EnumMap<>(Occupant.Type.class);
+
+    static {
+        CREATORS.put(Occupant.Type.SAMPLE_CREATURE, SampleCreature::new);
+        CREATORS.put(Occupant.Type.PLIP, Plip::new);
+        CREATORS.put(Occupant.Type.CLORUS, Clorus::new);
+    }
+
+    private Species() {
+    }
+
+    /** Returns the type with the given ordinal. */
+    static Occupant.Type type(int ordinal) {
+        return TYPES[ordinal];
+    }
+
+    /** Returns the name of type T in .world files, e.g. samplecreature. */
+    static String name(Occupant.Type t) {
+        return t.name().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    /** Returns the type called NAME in .world files, or null if none is. */
+    static Occupant.Type byName(String name) {
+        for (Occupant.Type t : TYPES) {
+            if (name(t).equals(name)) {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    /** Returns a new occupant of type T with ENERGY, or the shared wall
+     *  for IMPASSABLE. T must not be EMPTY. */
+    static Occupant create(Occupant.Type t, double energy) {
+        if (t == Occupant.Type.IMPASSABLE) {
+            return WorldStore.IMPASSIBLE;
+        }
+        DoubleFunction<Creature> creator = CREATORS.get(t);
+        if (creator == null) {
+            throw new IllegalArgumentException("Don't know how to create a " + t);
+        }
+        return creator.apply(energy);
+    }
+}
@@ -0,0 +1,64 @@
+package huglife;
+
+/** SplitMix64 random stream.
+ *
+ *  The k-th value of a stream is a hash of seed + k * GOLDEN, so the
+ *  whole state is one long: a stream can be recorded, restored or
+ *  restarted from a new seed without creating garbage, and streams with
+ *  different seeds are statistically independent. Not thread safe;
+ *  every thread draws from streams of its own.
+ */
+final class SplitMix {
+    /** Odd constant derived from the golden ratio. */
+    static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    SplitMix(long seed) {
+        state = seed;
+    }
+
+    /** Restarts this stream from SEED. */
+    void setSeed(long seed) {
+        state = seed;
+    }
+
+    /** Returns the state, from which setSeed resumes the stream exactly. */
+    long state() {
+        return state;
+    }
+
+    long nextLong() {
+        state += GOLDEN;
+        return mix(state);
+    }
+
+    /** Returns a double uniformly in [0, 1). */
+    double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /** Returns an int uniformly in [0, BOUND), using the same rejection
+     *  scheme as java.util.Random. */
+    int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive: " + bound);
+        }
+        int m = bound - 1;
+        int r = (int) (nextLong() >>> 33);
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        for (int u = r; u - (r = u % bound) + m < 0; u = (int) (nextLong() >>> 33)) {
+            continue;
+        }
+        return r;
+    }
+
+    /** Stafford's variant 13 of the Murmur3 finalizer. */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -128,6 +128,9 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
     private static BufferedImage offscreenImage, onscreenImage;
     private static Graphics2D offscreen, onscreen;
 
+    // number of times the canvas has been (re)created
+    private static int canvasGeneration;
+
     // singleton for callbacks: avoids generation of extra .class files
     private static final StdDraw std = new StdDraw();
 
@@ -176,10 +179,16 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         init();
     }
 
+    /**
+     * Returns a number that changes whenever the canvas is recreated,
+     * for callers that keep part of a drawing between frames.
+     */
+    public static int canvasGeneration() { return canvasGeneration; }
+
     // init
     private static void init() {
+        canvasGeneration++;
         if (frame != null) frame.setVisible(false);
-        frame = new JFrame();
         offscreenImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
         onscreenImage  = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
         offscreen = offscreenImage.createGraphics();
@@ -199,7 +208,14 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         hints.put(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
         offscreen.addRenderingHints(hints);
 
+        // without a display, draw into the images only (e.g. for save)
+        if (GraphicsEnvironment.isHeadless()) {
+            frame = null;
+            return;
+        }
+
         // frame stuff
+        frame = new JFrame();
         ImageIcon icon = new ImageIcon(onscreenImage);
         JLabel draw = new JLabel(icon);
 
@@ -744,6 +760,31 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
     }
 
 
+    /**
+     * Draw an image that is already in memory centered on (x, y),
+     * rescaled to w-by-h, with a single drawImage call.
+     * @param x the center x coordinate of the image
+     * @param y the center y coordinate of the image
+     * @param image the image, e.g. one whose pixels were written directly
+     * @param w the width of the image
+     * @param h the height of the image
+     * @throws IllegalArgumentException if the width height are negative
+     */
+    public static void picture(double x, double y, Image image, double w, double h) {
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        if (w < 0) throw new IllegalArgumentException("width is negative: " + w);
+        if (h < 0) throw new IllegalArgumentException("height is negative: " + h);
+        double ws = factorX(w);
+        double hs = factorY(h);
+        offscreen.drawImage(image, (int) Math.round(xs - ws/2.0),
+                                   (int) Math.round(ys - hs/2.0),
+                                   (int) Math.round(ws),
+                                   (int) Math.round(hs), null);
+        draw();
+    }
+
+
     /**
      * Draw picture (gif, jpg, or png) centered on (x, y), rotated
      * given number of degrees, rescaled to w-by-h.
@@ -883,7 +924,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
     private static void draw() {
         if (defer) return;
         onscreen.drawImage(offscreenImage, 0, 0, null);
-        frame.repaint();
+        if (frame != null) frame.repaint();
     }
 
 
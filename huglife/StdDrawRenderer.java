@@ -0,0 +1,20 @@
+package huglife;
+
+/** Draws the world in the StdDraw window, then pauses so that people
+ *  can follow along. Only cells that changed since the previous frame
+ *  are redrawn. */
+public class StdDrawRenderer implements Renderer {
+    /** Time in milliseconds to pause after each frame. */
+    private final int pause;
+
+    /** Creates a renderer that pauses PAUSE milliseconds per frame. */
+    public StdDrawRenderer(int pause) {
+        this.pause = pause;
+    }
+
+    @Override
+    public void render(Grid g) {
+        g.drawChanges();
+        StdDraw.show(pause);
+    }
+}
@@ -0,0 +1,83 @@
+package huglife;
+
+import creatures.Clorus;
+import creatures.Plip;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+/** Fails if steady-state tics of the built-in occupants allocate.
+ *
+ *  Births necessarily create a new Creature, so the worlds below are
+ *  chosen to never replicate: a packed world where everything stays,
+ *  and a world of low energy Cloruses that wander forever.
+ */
+public class TestAllocation {
+    private static final int WARMUP_CYCLES = 2000;
+    private static final int MEASURED_CYCLES = 200;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** Every cell filled, so that Plips, Cloruses and SampleCreatures all
+     *  look at walls and neighbors but have nowhere to go. */
+    private static Grid packedWorld(Grid.Storage storage) {
+        int n = 24;
+        Grid g = new Grid(n, storage);
+        for (int x = 0; x < n; x++) {
+            for (int y = 0; y < n; y++) {
+                boolean corner = (x == 0 || x == n - 1) && (y == 0 || y == n - 1);
+                switch (corner ? 0 : (x + y) % 3) {
+                    case 0 -> g.createCreature(x, y, new Plip());
+                    case 1 -> g.createCreature(x, y, new Clorus(1));
+                    default -> g.createCreature(x, y, new SampleCreature());
+                }
+            }
+        }
+        return g;
+    }
+
+    /** Cloruses below replication energy with no Plips around only
+     *  ever move or stay. */
+    private static Grid wanderingWorld(Grid.Storage storage) {
+        int n = 32;
+        Grid g = new Grid(n, storage);
+        for (int x = 0; x < n; x += 3) {
+            for (int y = 0; y < n; y += 2) {
+                g.createCreature(x, y, new Clorus(0.5));
+            }
+        }
+        return g;
+    }
+
+    private static void cycles(Grid g, int cycles) {
+        int done = 0;
+        while (done < cycles) {
+            if (g.tic()) {
+                done += 1;
+            }
+        }
+    }
+
+    private static long allocatedDuring(Grid g) {
+        long thread = Thread.currentThread().getId();
+        cycles(g, WARMUP_CYCLES);
+        long before = THREADS.getThreadAllocatedBytes(thread);
+        cycles(g, MEASURED_CYCLES);
+        return THREADS.getThreadAllocatedBytes(thread) - before;
+    }
+
+    @Test
+    public void tic_shouldNotAllocate_inPackedWorld() {
+        assertEquals(0, allocatedDuring(packedWorld(Grid.Storage.OBJECT)));
+        assertEquals(0, allocatedDuring(packedWorld(Grid.Storage.PACKED)));
+    }
+
+    @Test
+    public void tic_shouldNotAllocate_whileWandering() {
+        assertEquals(0, allocatedDuring(wanderingWorld(Grid.Storage.OBJECT)));
+        assertEquals(0, allocatedDuring(wanderingWorld(Grid.Storage.PACKED)));
+    }
+}
@@ -0,0 +1,80 @@
+package huglife;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests the frame handoff of AsyncRenderer. */
+public class TestAsyncRenderer {
+
+    @Test
+    public void tripleBuffer_shouldHandOverNewestOnly() {
+        TripleBuffer<int[]> b = new TripleBuffer<>(new int[1], new int[1], new int[1]);
+        assertEquals(null, b.take());
+        b.back()[0] = 1;
+        b.publish();
+        b.back()[0] = 2;
+        b.publish();
+        assertEquals(2, b.take()[0]);
+        assertEquals(null, b.take());
+    }
+
+    @Test
+    public void render_shouldDeliverFramesInOrderAndTheLastOne() throws Exception {
+        Grid g = new Grid(8);
+        g.createCreature(4, 4, new SampleCreature());
+        List<Long> seen = new ArrayList<>();
+        int[] last = new int[1];
+        AsyncRenderer r = new AsyncRenderer(f -> {
+            seen.add(f.tics());
+            last[0] = f.argb(4, 4);
+        });
+        SequentialEngine engine = new SequentialEngine();
+        for (int i = 0; i < 200; i++) {
+            engine.cycle(g);
+            r.render(g);
+        }
+        r.close();
+
+        assertTrue(!seen.isEmpty() && seen.size() <= 200);
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1) < seen.get(i));
+        }
+        assertEquals(g.tics(), (long) seen.get(seen.size() - 1));
+        assertEquals(g.getOccupant(4, 4).argb(), last[0]);
+    }
+
+    private static AsyncRenderer broken() {
+        return new AsyncRenderer(f -> {
+            throw new IllegalStateException("broken sink");
+        });
+    }
+
+    @Test
+    public void render_shouldRethrowWhatTheSinkThrew() throws Exception {
+        Grid g = new Grid(4);
+        AsyncRenderer r = broken();
+        try {
+            for (int i = 0; i < 1000; i++) {
+                r.render(g);
+                Thread.sleep(1);
+            }
+            fail("render should have thrown");
+        } catch (IllegalStateException expected) {
+            assertEquals("broken sink", expected.getMessage());
+        }
+        r.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void close_shouldRethrowWhatTheSinkThrew() {
+        AsyncRenderer r = broken();
+        r.render(new Grid(4));
+        r.close();
+    }
+}
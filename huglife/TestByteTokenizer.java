@@ -0,0 +1,75 @@
+package huglife;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.InputMismatchException;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests ByteTokenizer. */
+public class TestByteTokenizer {
+    private static final byte[][] WORDS = {
+        "plip".getBytes(StandardCharsets.US_ASCII),
+        "clorus".getBytes(StandardCharsets.US_ASCII),
+    };
+
+    private static ByteTokenizer of(String s) {
+        return new ByteTokenizer(ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void read_shouldParseWordsAndInts() {
+        ByteTokenizer t = of("  plip 12 -3\r\nclorus\t+7 0\nplipp 1 2");
+        assertEquals(0, t.readWord(WORDS));
+        assertEquals(12, t.readInt());
+        assertEquals(-3, t.readInt());
+        assertEquals(1, t.readWord(WORDS));
+        assertEquals(7, t.readInt());
+        assertEquals(0, t.readInt());
+        assertEquals(-1, t.readWord(WORDS));
+        assertArrayEquals(new int[] {1, 2}, t.readAllInts());
+        assertTrue(t.isEmpty());
+    }
+
+    @Test
+    public void readLong_shouldHandleLongNumbers() {
+        ByteTokenizer t = of("9223372036854775807 -9223372036854775808");
+        assertEquals(Long.MAX_VALUE, t.readLong());
+        assertEquals(Long.MIN_VALUE, t.readLong());
+    }
+
+    @Test(expected = InputMismatchException.class)
+    public void readInt_shouldRejectLargeNumbers() {
+        of("3000000000").readInt();
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void readInt_shouldRejectWords() {
+        of("12a").readInt();
+    }
+
+    @Test
+    public void split_shouldKeepLinesWhole() {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            s.append(i).append(' ').append(-i).append('\n');
+        }
+        List<ByteTokenizer> chunks = of(s.toString()).split(100);
+        assertTrue(chunks.size() > 10);
+        int i = 0;
+        for (ByteTokenizer chunk : chunks) {
+            int[] values = chunk.readAllInts();
+            assertEquals(0, values.length % 2);
+            for (int k = 0; k < values.length; k += 2, i++) {
+                assertEquals(i, values[k]);
+                assertEquals(-i, values[k + 1]);
+            }
+        }
+        assertEquals(1000, i);
+    }
+}
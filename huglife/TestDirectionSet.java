@@ -0,0 +1,41 @@
+package huglife;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests DirectionSet and the random choices made from it. */
+public class TestDirectionSet {
+
+    @Test
+    public void get_shouldListMembersInDirectionOrder() {
+        int set = DirectionSet.of(Direction.RIGHT) | DirectionSet.of(Direction.TOP);
+        assertEquals(2, DirectionSet.size(set));
+        assertEquals(Direction.TOP, DirectionSet.get(set, 0));
+        assertEquals(Direction.RIGHT, DirectionSet.get(set, 1));
+        assertEquals(List.of(Direction.TOP, Direction.RIGHT), DirectionSet.toList(set));
+        assertEquals(set, DirectionSet.of(DirectionSet.toList(set)));
+        assertTrue(DirectionSet.isEmpty(DirectionSet.NONE));
+        assertEquals(4, DirectionSet.size(DirectionSet.ALL));
+    }
+
+    @Test
+    public void randomEntry_shouldChooseLikeTheListVersion() {
+        for (int set = 1; set <= DirectionSet.ALL; set++) {
+            List<Direction> list = DirectionSet.toList(set);
+            SplitMix previous = RandomStreams.use(new SplitMix(set));
+            Direction[] fromList = new Direction[50];
+            for (int i = 0; i < fromList.length; i++) {
+                fromList[i] = HugLifeUtils.randomEntry(list);
+            }
+            RandomStreams.use(new SplitMix(set));
+            for (Direction expected : fromList) {
+                assertEquals(expected, HugLifeUtils.randomEntry(set));
+            }
+            RandomStreams.use(previous);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package huglife;
+
+import creatures.Clorus;
+import creatures.Plip;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests running many worlds at once. */
+public class TestEnsemble {
+
+    private static final LongFunction<Grid> WORLD = seed -> {
+        Grid g = new Grid(16, Grid.Storage.OBJECT, seed);
+        g.createCreature(3, 3, new Plip());
+        g.createCreature(8, 8, new Plip());
+        g.createCreature(12, 4, new Clorus(1));
+        g.createCreature(5, 12, new SampleCreature());
+        return g;
+    };
+
+    private static long[] seeds(int count) {
+        long[] seeds = new long[count];
+        for (int i = 0; i < count; i++) {
+            seeds[i] = 1000 + i;
+        }
+        return seeds;
+    }
+
+    private static int[] finalPlips(List<Ensemble.Result> results) {
+        int[] plips = new int[results.size()];
+        for (int i = 0; i < plips.length; i++) {
+            plips[i] = results.get(i).population(Occupant.Type.PLIP);
+        }
+        return plips;
+    }
+
+    @Test
+    public void runAll_shouldNotDependOnThreadCount() throws Exception {
+        long[] seeds = seeds(12);
+        List<Ensemble.Result> one;
+        List<Ensemble.Result> four;
+        try (Ensemble e = new Ensemble(1)) {
+            one = e.runAll(WORLD, seeds, 200);
+        }
+        try (Ensemble e = new Ensemble(4)) {
+            four = e.runAll(WORLD, seeds, 200);
+        }
+        assertArrayEquals(finalPlips(one), finalPlips(four));
+        for (int i = 0; i < seeds.length; i++) {
+            assertEquals(seeds[i], four.get(i).seed());
+            assertEquals(one.get(i).tics(), four.get(i).tics());
+        }
+    }
+
+    @Test
+    public void results_shouldHoldSeriesAndExtinction() throws Exception {
+        try (Ensemble e = new Ensemble(2)) {
+            e.setSampleInterval(10);
+            Ensemble.Result r = e.submit(WORLD, 7, 95).get();
+            assertEquals(95, r.cycles());
+            assertEquals(10, r.samples());
+            assertEquals(2, r.population(0, Occupant.Type.PLIP));
+
+            e.setQuiescence(() -> new Quiescence(5, 2));
+            Ensemble.Result extinct = e.submit(seed -> new Grid(4), 1, 100).get();
+            assertEquals(1, extinct.extinctionCycle());
+            assertEquals(Quiescence.Reason.EXTINCT, extinct.stopReason());
+        }
+    }
+
+    @Test
+    public void cancel_shouldStopRunningWorlds() throws Exception {
+        try (Ensemble e = new Ensemble(2)) {
+            Future<Ensemble.Result> run = e.submit(WORLD, 1, Long.MAX_VALUE);
+            Thread.sleep(50);
+            e.cancel();
+            assertTrue(run.isCancelled());
+            try {
+                run.get();
+            } catch (CancellationException expected) {
+                return;
+            }
+            throw new AssertionError("Run was not cancelled.");
+        }
+    }
+
+    @Test
+    public void world_shouldCopyWhatWasReadOnce() throws Exception {
+        long[] seeds = seeds(4);
+        Path file = Files.createTempFile("huglife", ".world");
+        List<Ensemble.Result> read;
+        List<Ensemble.Result> copied;
+        try (Ensemble e = new Ensemble(2)) {
+            WorldFile.write(WORLD.apply(1), file, true);
+            read = e.runAll(seed -> {
+                try {
+                    Grid g = WorldFile.read(file, 16, Grid.Storage.CHUNKED);
+                    g.setSeed(seed);
+                    return g;
+                } catch (IOException ex) {
+                    throw new AssertionError(ex);
+                }
+            }, seeds, 100);
+            LongFunction<Grid> world = Ensemble.world(file, Grid.Storage.CHUNKED);
+            Files.delete(file);
+            copied = e.runAll(world, seeds, 100);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        assertArrayEquals(finalPlips(read), finalPlips(copied));
+        for (int i = 0; i < seeds.length; i++) {
+            assertEquals(read.get(i).tics(), copied.get(i).tics());
+        }
+    }
+
+    @Test
+    public void countTypes_shouldFollowTheWorld() {
+        Grid g = WORLD.apply(3);
+        for (int cycle = 0; cycle < 100; cycle++) {
+            new SequentialEngine().cycle(g);
+        }
+        int[] scanned = new int[Occupant.Type.values().length];
+        for (int x = 0; x < g.size(); x++) {
+            for (int y = 0; y < g.size(); y++) {
+                scanned[g.getOccupant(x, y).getType().ordinal()] += 1;
+            }
+        }
+        assertArrayEquals(scanned, g.countTypes());
+    }
+}
@@ -0,0 +1,59 @@
+package huglife;
+
+import creatures.Clorus;
+import creatures.Plip;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the flight recorder events of Grid. */
+public class TestFlightEvents {
+
+    @Test
+    public void recording_shouldHaveCyclesAndTics() throws IOException {
+        Grid g = new Grid(10, Grid.Storage.OBJECT, 5);
+        for (int x = 0; x < 10; x += 2) {
+            g.createCreature(x, 3, new Plip());
+            g.createCreature(x, 7, new Clorus(1));
+        }
+        SequentialEngine engine = new SequentialEngine();
+        Path file = Files.createTempFile("huglife", ".jfr");
+        try (Recording r = new Recording()) {
+            r.enable(CycleEvent.class);
+            r.enable(TicEvent.class).withThreshold(Duration.ZERO);
+            r.start();
+            for (int i = 0; i < 5; i++) {
+                engine.cycle(g);
+            }
+            r.stop();
+            r.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            long cycles = events.stream()
+                                .filter(e -> e.getEventType().getName().equals("huglife.Cycle"))
+                                .count();
+            List<RecordedEvent> tics = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("huglife.Tic"))
+                    .toList();
+            // The first cycle started before the recording.
+            assertEquals(4, cycles);
+            assertEquals(g.tics(), tics.size());
+            RecordedEvent tic = tics.get(0);
+            assertFalse(tic.getString("species").isEmpty());
+            assertTrue(tic.getDuration("choose").toNanos() > 0);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package huglife;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests FramePacer against a fake clock. */
+public class TestFramePacer {
+    /** Clock that only moves when steps, draws or sleeps take time. */
+    private long now;
+    private long slept;
+
+    private FramePacer pacer(double fps, double stepsPerSecond) {
+        return new FramePacer(fps, stepsPerSecond, () -> now, nanos -> {
+            slept += nanos;
+            now += nanos;
+        });
+    }
+
+    @Test
+    public void run_shouldKeepStepRateAndSleepWhenAhead() {
+        FramePacer p = pacer(10, 25);
+        int[] steps = new int[1];
+        p.run(100, () -> steps[0] += 1, () -> now += 1_000_000);
+        assertEquals(100, steps[0]);
+        assertEquals(40, p.framesDrawn());
+        assertEquals(0, p.framesSkipped());
+        assertTrue(slept > 0);
+    }
+
+    @Test
+    public void run_shouldFillFramesWhenUnlimited() {
+        FramePacer p = pacer(10, 0);
+        // 1 ms per step and 20 ms per draw leave room for 80 steps.
+        p.run(10_000, () -> now += 1_000_000, () -> now += 20_000_000);
+        assertEquals(80, p.lastBatch());
+    }
+
+    @Test
+    public void run_shouldSkipDrawsAndNeverSleepWhenBehind() {
+        FramePacer p = pacer(10, 10);
+        // Every step takes a whole frame on its own.
+        p.run(60, () -> now += 200_000_000, () -> now += 1_000_000);
+        assertEquals(0, slept);
+        assertTrue(p.framesSkipped() > 0);
+        assertEquals(60, p.framesDrawn() + p.framesSkipped());
+        assertTrue(p.framesDrawn() >= 60 / (FramePacer.MAX_SKIPPED + 1));
+    }
+
+    @Test
+    public void run_shouldSkipDrawsWhenDrawingIsTheBottleneck() {
+        FramePacer p = pacer(10, 0);
+        // 1 us per step, but every draw takes three frames.
+        long[] steps = new long[1];
+        p.run(5_000_000, () -> {
+            steps[0] += 1;
+            now += 1_000;
+        }, () -> now += 300_000_000);
+        assertEquals(5_000_000, steps[0]);
+        assertTrue(p.framesSkipped() > 0);
+        assertTrue(p.lastBatch() > 10_000);
+        assertTrue(steps[0] / p.framesDrawn() > 10_000);
+    }
+}
@@ -0,0 +1,94 @@
+package huglife;
+
+import creatures.Plip;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/** Tests the hash that Grid keeps of its world. */
+public class TestGridHash {
+
+    private static Grid populate(Grid.Storage storage) {
+        Grid g = TestWorlds.lattice(24, 3, 4, storage, 77);
+        g.placeOccupant(13, 13, WorldStore.IMPASSIBLE);
+        return g;
+    }
+
+    /** Returns the hash of a copy of G, built from scratch. */
+    private static long rebuiltHash(Grid g) throws IOException {
+        Path file = Files.createTempFile("huglife", ".snapshot");
+        try {
+            Snapshot.write(g, file);
+            return Snapshot.read(file).hash();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static long[] cycleHashes(Grid g, CycleEngine engine, int cycles) {
+        long[] hashes = new long[cycles];
+        for (int i = 0; i < cycles; i++) {
+            engine.cycle(g);
+            hashes[i] = g.cycleHash();
+        }
+        return hashes;
+    }
+
+    @Test
+    public void hash_shouldFollowEveryChange() throws IOException {
+        Grid g = populate(Grid.Storage.OBJECT);
+        for (int i = 0; i < 5000; i++) {
+            g.tic();
+            if (i % 1000 == 0) {
+                assertEquals(rebuiltHash(g), g.hash());
+            }
+        }
+        assertEquals(rebuiltHash(g), g.hash());
+    }
+
+    @Test
+    public void hash_shouldDependOnEnergy() {
+        Grid a = new Grid(4, Grid.Storage.OBJECT, 1);
+        Grid b = new Grid(4, Grid.Storage.OBJECT, 1);
+        a.createCreature(1, 1, new Plip(1));
+        b.createCreature(1, 1, new Plip(1.5));
+        assertNotEquals(a.hash(), b.hash());
+        b.destroyCreature(1, 1);
+        b.createCreature(1, 1, new Plip(1));
+        assertEquals(a.hash(), b.hash());
+    }
+
+    @Test
+    public void cycleHashes_shouldAgreeAcrossStorage() {
+        long[] object = cycleHashes(populate(Grid.Storage.OBJECT),
+                                    new SequentialEngine(), 100);
+        assertArrayEquals(object, cycleHashes(populate(Grid.Storage.PACKED),
+                                              new SequentialEngine(), 100));
+        assertArrayEquals(object, cycleHashes(populate(Grid.Storage.CHUNKED),
+                                              new SequentialEngine(), 100));
+    }
+
+    @Test
+    public void cycleHashes_shouldAgreeAcrossThreads() throws IOException {
+        long[] one;
+        Grid g = populate(Grid.Storage.OBJECT);
+        try (TileParallelEngine engine = new TileParallelEngine(1, 6,
+                TileParallelEngine.Keying.TILE)) {
+            one = cycleHashes(g, engine, 50);
+        }
+        try (TileParallelEngine engine = new TileParallelEngine(4, 6,
+                TileParallelEngine.Keying.TILE)) {
+            assertArrayEquals(one, cycleHashes(populate(Grid.Storage.PACKED),
+                                               engine, 50));
+        }
+        // Sequential tics carry on from the recomputed hash.
+        cycleHashes(g, new SequentialEngine(), 10);
+        assertEquals(rebuiltHash(g), g.hash());
+    }
+}
@@ -2,6 +2,9 @@ package huglife;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 /** Performs basic tests of huglife package.
  *  @author Josh Hug
  */
@@ -23,6 +26,26 @@ public class TestHugLife {
 
     }
 
+    @Test
+    public void simulate_shouldRenderEveryCycle() {
+        var h = new HugLife(10);
+        h.addCreature(5, 5, new SampleCreature());
+        int[] frames = new int[1];
+        h.setRenderer(new CallbackRenderer(g -> frames[0] += 1));
+        h.simulate(7);
+        assertEquals(7, frames[0]);
+    }
+
+    @Test
+    public void runHeadless_shouldReportSpeed() {
+        var h = new HugLife(10);
+        h.addCreature(5, 5, new SampleCreature());
+        RunReport report = h.runHeadless(20);
+        assertEquals(20, report.cycles());
+        assertTrue(report.tics() > 0);
+        assertTrue(report.ticsPerSecond() > 0);
+    }
+
     public static void main(String[] args) {
         // Their way to reu tests
 //        jh61b.junit.textui.runClasses(TestHugLife.class);
@@ -0,0 +1,83 @@
+package huglife;
+
+import creatures.Clorus;
+import creatures.Plip;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests Metrics and LatencyHistogram. */
+public class TestMetrics {
+
+    @Test
+    public void histogram_shouldReportWithinBucketPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 1000; v++) {
+            h.record(v * 1000);
+        }
+        assertEquals(1000, h.count());
+        assertEquals(500_500, h.mean(), 0.001);
+        assertEquals(1_000_000, h.max());
+        long p50 = h.percentile(0.5);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.125);
+        long p99 = h.percentile(0.99);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000);
+        for (long v : new long[] {0, 15, 16, 17, 1000, Long.MAX_VALUE}) {
+            assertTrue(LatencyHistogram.highestIn(LatencyHistogram.bucket(v)) >= v);
+        }
+    }
+
+    @Test
+    public void grid_shouldCountActionsAndPopulation() {
+        Grid g = new Grid(12, Grid.Storage.OBJECT, 3);
+        for (int x = 0; x < 12; x += 2) {
+            g.createCreature(x, 0, new Plip());
+            g.createCreature(x, 6, new Clorus(1));
+        }
+        Metrics m = new Metrics();
+        g.setMetrics(m);
+        assertEquals(6, m.population(Occupant.Type.PLIP));
+        g.placeOccupant(11, 11, WorldStore.IMPASSIBLE);
+        assertEquals(1, m.population(Occupant.Type.IMPASSABLE));
+
+        SequentialEngine engine = new SequentialEngine();
+        for (int i = 0; i < 30; i++) {
+            engine.cycle(g);
+        }
+        long actions = 0;
+        for (Action.Type t : Action.Type.values()) {
+            actions += m.actions(t);
+        }
+        assertEquals(g.tics(), actions);
+        assertEquals(g.tics(), m.tic().count());
+        assertEquals(29, m.cycle().count());
+        assertEquals(g.population(), m.population(Occupant.Type.PLIP)
+                                     + m.population(Occupant.Type.CLORUS));
+        assertEquals(g.population(), m.queueLength());
+        assertEquals(m.actions(Action.Type.STAY) + m.actions(Action.Type.MOVE)
+                     + m.actions(Action.Type.REPLICATE) + m.actions(Action.Type.DIE)
+                     + m.actions(Action.Type.ATTACK),
+                     m.chooseAction(Occupant.Type.PLIP).count()
+                     + m.chooseAction(Occupant.Type.CLORUS).count());
+    }
+
+    @Test
+    public void write_shouldMatchCsvHeader() throws IOException {
+        Metrics m = new Metrics();
+        m.tic().record(100);
+        StringBuilder header = new StringBuilder();
+        StringBuilder row = new StringBuilder();
+        StringBuilder json = new StringBuilder();
+        m.writeCsvHeader(header);
+        m.write(row, Metrics.Format.CSV, 7);
+        m.write(json, Metrics.Format.JSON, 7);
+        assertEquals(header.toString().split(",").length, row.toString().split(",").length);
+        assertTrue(row.toString().startsWith("7,"));
+        assertTrue(json.toString().startsWith("{\"time\":7,\"actions.move\":0"));
+        assertTrue(json.toString().contains("\"tic.count\":1"));
+        assertTrue(json.toString().endsWith("}\n"));
+    }
+}
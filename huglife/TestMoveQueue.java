@@ -0,0 +1,72 @@
+package huglife;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the MoveQueue used by Grid. */
+public class TestMoveQueue {
+
+    @Test
+    public void remove_shouldKeepFifoOrderAroundSentinel() {
+        MoveQueue q = new MoveQueue(100);
+        q.add(MoveQueue.SENTINEL);
+        q.add(3);
+        q.add(7);
+        assertEquals(MoveQueue.SENTINEL, q.remove());
+        q.add(MoveQueue.SENTINEL);
+        assertEquals(3, q.remove());
+        assertEquals(7, q.remove());
+        assertEquals(MoveQueue.SENTINEL, q.remove());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void removeCell_shouldSkipRemovedEntries() {
+        MoveQueue q = new MoveQueue(100);
+        q.add(1);
+        q.add(2);
+        q.add(3);
+        assertTrue(q.remove(2));
+        assertFalse(q.remove(2));
+        assertFalse(q.contains(2));
+        assertEquals(2, q.size());
+        assertEquals(1, q.remove());
+        assertEquals(3, q.remove());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void add_shouldKeepOrderWhenGrowingAndCompacting() {
+        keepsOrderWhenGrowingAndCompacting(new MoveQueue(1000));
+    }
+
+    @Test
+    public void sparse_shouldKeepOrderWhenGrowingAndCompacting() {
+        keepsOrderWhenGrowingAndCompacting(MoveQueue.sparse());
+    }
+
+    private static void keepsOrderWhenGrowingAndCompacting(MoveQueue q) {
+        q.add(MoveQueue.SENTINEL);
+        for (int c = 0; c < 500; c++) {
+            q.add(c);
+        }
+        for (int c = 0; c < 500; c += 2) {
+            q.remove(c);
+        }
+        for (int c = 500; c < 1000; c++) {
+            q.add(c);
+        }
+        assertEquals(MoveQueue.SENTINEL, q.remove());
+        for (int c = 1; c < 500; c += 2) {
+            assertTrue(q.contains(c));
+            assertEquals(c, q.remove());
+        }
+        for (int c = 500; c < 1000; c++) {
+            assertEquals(c, q.remove());
+        }
+        assertTrue(q.isEmpty());
+    }
+}
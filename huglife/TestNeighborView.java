@@ -0,0 +1,71 @@
+package huglife;
+
+import creatures.Clorus;
+import creatures.Plip;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests NeighborView, and that Grid still serves creatures that only
+ *  implement chooseAction(Map). */
+public class TestNeighborView {
+
+    /** Knows nothing about NeighborView, always moves right. */
+    private static class MapOnlyCreature extends Creature {
+        Map<Direction, Occupant> seen;
+
+        MapOnlyCreature() {
+            super(Type.SAMPLE_CREATURE);
+        }
+
+        public void move() { }
+        public void attack(Creature c) { }
+        public Creature replicate() { return new MapOnlyCreature(); }
+        public void stay() { }
+        public Color color() { return color(0, 0, 0); }
+
+        public Action chooseAction(Map<Direction, Occupant> neighbors) {
+            seen = neighbors;
+            return Action.of(Action.Type.MOVE, Direction.RIGHT);
+        }
+    }
+
+    @Test
+    public void queries_shouldDescribeNeighbors() {
+        Map<Direction, Occupant> map = new EnumMap<>(Direction.class);
+        map.put(Direction.TOP, new Empty());
+        map.put(Direction.BOTTOM, new Plip());
+        map.put(Direction.LEFT, new Empty());
+        map.put(Direction.RIGHT, new Clorus());
+
+        NeighborView view = NeighborView.of(map);
+        assertEquals(Occupant.Type.PLIP, view.type(Direction.BOTTOM));
+        assertEquals(2, view.count(Occupant.Type.EMPTY));
+        assertEquals(0, view.count(Occupant.Type.IMPASSABLE));
+        assertEquals((1 << Direction.TOP.ordinal()) | (1 << Direction.LEFT.ordinal()),
+                     view.mask(Occupant.Type.EMPTY));
+        assertEquals(List.of(Direction.TOP, Direction.LEFT),
+                     view.directions(Occupant.Type.EMPTY));
+        assertTrue(view.is(Direction.RIGHT, Occupant.Type.CLORUS));
+        assertFalse(view.is(Direction.RIGHT, Occupant.Type.PLIP));
+        assertEquals(map, view.toMap());
+    }
+
+    @Test
+    public void grid_shouldFallBackToMap() {
+        Grid g = new Grid(5);
+        MapOnlyCreature c = new MapOnlyCreature();
+        g.createCreature(0, 0, c);
+        g.tic();
+        g.tic();
+        assertEquals(Occupant.Type.IMPASSABLE, c.seen.get(Direction.LEFT).getType());
+        assertEquals(Occupant.Type.SAMPLE_CREATURE, g.getOccupant(1, 0).getType());
+    }
+}
@@ -0,0 +1,112 @@
+package huglife;
+
+import creatures.Plip;
+import org.junit.Test;
+
+import java.awt.Color;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Tests that stuck worlds are recognized. */
+public class TestQuiescence {
+
+    /** Walks one cell right and back, losing LOSS energy per move
+     *  from an energy of 1, until it dies. */
+    private static class Shuttle extends Creature {
+        private final double loss;
+        private boolean back;
+
+        Shuttle(double loss) {
+            super(Type.SAMPLE_CREATURE);
+            this.loss = loss;
+            this.energy = 1;
+        }
+
+        @Override
+        public void move() {
+            back = !back;
+            energy -= loss;
+        }
+
+        @Override
+        public void attack(Creature c) {
+        }
+
+        @Override
+        public Creature replicate() {
+            return this;
+        }
+
+        @Override
+        public void stay() {
+        }
+
+        @Override
+        public Action chooseAction(Map<Direction, Occupant> neighbors) {
+            return Action.of(Action.Type.MOVE, back ? Direction.LEFT : Direction.RIGHT);
+        }
+
+        @Override
+        public Color color() {
+            return Color.WHITE;
+        }
+    }
+
+    /** Random walks return often enough that short patience would
+     *  take them for recurring. */
+    private static final int PATIENCE = 20;
+
+    private static HugLife stopping(HugLife h) {
+        h.setQuiescence(new Quiescence(PATIENCE, 4));
+        return h;
+    }
+
+    @Test
+    public void run_shouldStopWhenExtinct() {
+        HugLife h = stopping(new HugLife(8));
+        h.addCreature(3, 3, new Shuttle(0.25));
+        RunReport report = h.runHeadless(1000);
+        assertEquals(Quiescence.Reason.EXTINCT, report.stopReason());
+        assertTrue(report.cycles() < 1000);
+    }
+
+    @Test
+    public void run_shouldStopWhenEverythingStays() {
+        HugLife h = stopping(new HugLife(4));
+        for (int x = 0; x < 4; x++) {
+            for (int y = 0; y < 4; y++) {
+                h.addCreature(x, y, new Plip());
+            }
+        }
+        RunReport report = h.runHeadless(1000);
+        assertEquals(Quiescence.Reason.STATIC, report.stopReason());
+        // The first cycle follows the creation of the world.
+        assertEquals(PATIENCE + 1, report.cycles());
+    }
+
+    @Test
+    public void run_shouldStopWhenRecurring() {
+        HugLife h = stopping(new HugLife(8));
+        h.addCreature(2, 2, new Shuttle(0));
+        h.addCreature(5, 6, new Shuttle(0));
+        RunReport report = h.runHeadless(1000);
+        assertEquals(Quiescence.Reason.RECURRING, report.stopReason());
+        assertTrue(report.cycles() <= PATIENCE + 2);
+    }
+
+    @Test
+    public void run_shouldGoOnWhileWorldChanges() {
+        HugLife h = stopping(new HugLife(8));
+        h.addCreature(2, 2, new Shuttle(0));
+        h.addCreature(5, 5, new SampleCreature());
+        h.setSeed(3);
+        int[] frames = new int[1];
+        h.setRenderer(new CallbackRenderer(g -> frames[0] += 1));
+        h.simulate(40);
+        assertNull(h.stopReason());
+        assertEquals(40, frames[0]);
+    }
+}
@@ -0,0 +1,68 @@
+package huglife;
+
+import creatures.Clorus;
+import creatures.Plip;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests that runs are reproducible from their seed. */
+public class TestRandomStreams {
+
+    private static Grid run(long seed) {
+        Grid g = new Grid(16, Grid.Storage.OBJECT, seed);
+        g.createCreature(2, 2, new SampleCreature());
+        g.createCreature(8, 8, new Plip());
+        g.createCreature(9, 8, new Plip(1.5));
+        g.createCreature(4, 12, new Clorus(1));
+        SequentialEngine engine = new SequentialEngine();
+        for (int i = 0; i < 80; i++) {
+            engine.cycle(g);
+        }
+        return g;
+    }
+
+    @Test
+    public void seed_shouldReproduceRun() {
+        TestTileParallelEngine.assertSameWorld(run(7), run(7));
+    }
+
+    @Test
+    public void worlds_shouldNotShareStreams() {
+        Grid a = new Grid(4, Grid.Storage.OBJECT, 1);
+        Grid b = new Grid(4, Grid.Storage.OBJECT, 1);
+        a.createCreature(1, 1, new SampleCreature());
+        b.createCreature(1, 1, new SampleCreature());
+        b.createCreature(3, 3, new SampleCreature());
+        // Drawing from b in between must not change what a sees.
+        for (int i = 0; i < 20; i++) {
+            a.tic();
+            b.tic();
+        }
+        Grid c = new Grid(4, Grid.Storage.OBJECT, 1);
+        c.createCreature(1, 1, new SampleCreature());
+        for (int i = 0; i < 20; i++) {
+            c.tic();
+        }
+        TestTileParallelEngine.assertSameWorld(c, a);
+    }
+
+    @Test
+    public void splitMix_shouldDrawUniformIntsInBounds() {
+        SplitMix r = new SplitMix(3);
+        int[] counts = new int[3];
+        for (int i = 0; i < 30000; i++) {
+            counts[r.nextInt(3)] += 1;
+        }
+        for (int c : counts) {
+            assertTrue(Math.abs(c - 10000) < 500);
+        }
+        long state = r.state();
+        double next = r.nextDouble();
+        r.setSeed(state);
+        assertEquals(next, r.nextDouble(), 0);
+        assertNotEquals(RandomStreams.seed(1, 2), RandomStreams.seed(2, 1));
+    }
+}
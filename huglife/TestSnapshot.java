@@ -0,0 +1,83 @@
+package huglife;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+/** Tests that snapshots resume runs exactly. */
+public class TestSnapshot {
+
+    private static Grid world(Grid.Storage storage) {
+        Grid g = TestWorlds.lattice(16, 2, 3, storage, 7);
+        g.placeOccupant(15, 15, WorldStore.IMPASSIBLE);
+        return g;
+    }
+
+    private static void tics(Grid g, int tics) {
+        for (int i = 0; i < tics; i++) {
+            g.tic();
+        }
+    }
+
+    private static void assertResumes(Grid.Storage storage) throws IOException {
+        Grid original = world(storage);
+        // Stop in the middle of a cycle, to cover the queue order.
+        tics(original, 333);
+        Path file = Files.createTempFile("huglife", ".snapshot");
+        try {
+            Snapshot.write(original, file);
+            Grid loaded = Snapshot.read(file);
+            assertEquals(original.tics(), loaded.tics());
+            assertEquals(original.seed(), loaded.seed());
+            TestTileParallelEngine.assertSameWorld(original, loaded);
+
+            tics(original, 1000);
+            tics(loaded, 1000);
+            TestTileParallelEngine.assertSameWorld(original, loaded);
+            for (int x = 0; x < 16; x++) {
+                for (int y = 0; y < 16; y++) {
+                    assertEquals(original.getOccupant(x, y).argb(),
+                                 loaded.getOccupant(x, y).argb());
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void read_shouldResumeExactly() throws IOException {
+        assertResumes(Grid.Storage.OBJECT);
+        assertResumes(Grid.Storage.PACKED);
+    }
+
+    @Test(expected = IOException.class)
+    public void read_shouldRejectOtherFiles() throws IOException {
+        Path file = Files.createTempFile("huglife", ".snapshot");
+        try {
+            Files.write(file, new byte[64]);
+            Snapshot.read(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void read_shouldRejectUnknownStorage() throws IOException {
+        Path file = Files.createTempFile("huglife", ".snapshot");
+        try {
+            Snapshot.write(world(Grid.Storage.OBJECT), file);
+            byte[] bytes = Files.readAllBytes(file);
+            // The storage ordinal follows magic, version and size.
+            bytes[12] = 100;
+            Files.write(file, bytes);
+            Snapshot.read(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package huglife;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests that the TileParallelEngine is deterministic. */
+public class TestTileParallelEngine {
+
+    private static Grid run(int threads, Grid.Storage storage) {
+        return run(threads, 4, TileParallelEngine.Keying.TILE, storage);
+    }
+
+    private static Grid run(int threads, int tileSize,
+                            TileParallelEngine.Keying keying,
+                            Grid.Storage storage) {
+        Grid g = TestWorlds.lattice(40, 3, 4, storage, 1234);
+        g.setSeed(1234);
+        try (TileParallelEngine engine =
+                     new TileParallelEngine(threads, tileSize, keying)) {
+            for (int i = 0; i < 60; i++) {
+                engine.cycle(g);
+            }
+        }
+        return g;
+    }
+
+    static void assertSameWorld(Grid expected, Grid actual) {
+        assertEquals(expected.population(), actual.population());
+        assertArrayEquals(expected.countTypes(), actual.countTypes());
+        for (int x = 0; x < expected.size(); x++) {
+            for (int y = 0; y < expected.size(); y++) {
+                Occupant a = expected.getOccupant(x, y);
+                Occupant b = actual.getOccupant(x, y);
+                assertEquals(a.getType(), b.getType());
+                if (a instanceof Creature) {
+                    assertEquals(((Creature) a).energy(),
+                                 ((Creature) b).energy(), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void cycle_shouldNotDependOnThreadCount() {
+        Grid one = run(1, Grid.Storage.OBJECT);
+        assertSameWorld(one, run(4, Grid.Storage.OBJECT));
+        assertSameWorld(one, run(3, Grid.Storage.PACKED));
+    }
+
+    @Test
+    public void cellKeying_shouldNotDependOnThreadCount() {
+        Grid one = run(1, 6, TileParallelEngine.Keying.CELL, Grid.Storage.OBJECT);
+        assertSameWorld(one, run(3, 6, TileParallelEngine.Keying.CELL,
+                                 Grid.Storage.PACKED));
+    }
+
+    @Test
+    public void cycle_shouldLeaveGridUsableForTics() {
+        Grid g = run(2, Grid.Storage.OBJECT);
+        int creatures = 0;
+        for (int x = 0; x < g.size(); x++) {
+            for (int y = 0; y < g.size(); y++) {
+                if (g.getOccupant(x, y) instanceof Creature) {
+                    creatures += 1;
+                }
+            }
+        }
+        assertEquals(creatures, g.population());
+
+        int tics = 0;
+        while (!g.tic()) {
+            tics += 1;
+        }
+        assertTrue(tics > 0 && tics <= creatures);
+    }
+}
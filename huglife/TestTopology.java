@@ -0,0 +1,95 @@
+package huglife;
+
+import creatures.Clorus;
+import creatures.Plip;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+/** Tests worlds whose edges wrap around. */
+public class TestTopology {
+
+    private static Grid populate(Grid.Storage storage, int n) {
+        return TestWorlds.lattice(n, 3, 4, storage, Grid.Topology.TORUS, 99);
+    }
+
+    @Test
+    public void neighbors_shouldWrapOnTorus() {
+        Grid torus = new Grid(5, Grid.Storage.OBJECT, Grid.Topology.TORUS, 1);
+        torus.createCreature(4, 0, new Clorus(1));
+        torus.createCreature(0, 4, new Plip());
+        assertEquals(Occupant.Type.CLORUS,
+                     torus.neighbors(0, 0).get(Direction.LEFT).getType());
+        assertEquals(Occupant.Type.PLIP,
+                     torus.neighbors(0, 0).get(Direction.BOTTOM).getType());
+        assertEquals(Occupant.Type.CLORUS, torus.getOccupant(-1, 5).getType());
+
+        Grid bounded = new Grid(5, Grid.Storage.OBJECT, 1);
+        assertEquals(Occupant.Type.IMPASSABLE,
+                     bounded.neighbors(0, 0).get(Direction.LEFT).getType());
+        assertEquals(Occupant.Type.IMPASSABLE, bounded.getOccupant(-1, 5).getType());
+    }
+
+    @Test
+    public void actions_shouldCrossEdgesOfTorus() {
+        Grid g = new Grid(5, Grid.Storage.PACKED, Grid.Topology.TORUS, 1);
+        g.createCreature(0, 0, new Plip());
+        g.handleAction(0, 0, Action.of(Action.Type.MOVE, Direction.LEFT));
+        assertEquals(Occupant.Type.PLIP, g.getOccupant(4, 0).getType());
+        g.doMove(4, 0, 4, -1);
+        assertEquals(Occupant.Type.PLIP, g.getOccupant(4, 4).getType());
+        assertEquals(Occupant.Type.EMPTY, g.getOccupant(4, 0).getType());
+    }
+
+    @Test
+    public void computedNeighbors_shouldMatchTable() {
+        Grid tabled = populate(Grid.Storage.OBJECT, 12);
+        Grid computed = populate(Grid.Storage.CHUNKED, 12);
+        for (int i = 0; i < 3000; i++) {
+            tabled.tic();
+            computed.tic();
+        }
+        TestTileParallelEngine.assertSameWorld(tabled, computed);
+    }
+
+    private static Grid runParallel(int threads, int tileSize) {
+        Grid g = populate(Grid.Storage.OBJECT, 40);
+        try (TileParallelEngine engine = new TileParallelEngine(threads, tileSize,
+                TileParallelEngine.Keying.TILE)) {
+            for (int i = 0; i < 60; i++) {
+                engine.cycle(g);
+            }
+        }
+        return g;
+    }
+
+    @Test
+    public void tileEngine_shouldHandleOddTileCountsOnTorus() {
+        // 7 tiles, and 3 tiles after merging a sliver of one cell.
+        for (int tileSize : new int[] {6, 13}) {
+            TestTileParallelEngine.assertSameWorld(runParallel(1, tileSize),
+                                                   runParallel(4, tileSize));
+        }
+    }
+
+    @Test
+    public void files_shouldKeepTopology() throws IOException {
+        Grid g = populate(Grid.Storage.OBJECT, 12);
+        Path file = Files.createTempFile("huglife", ".world");
+        try {
+            WorldFile.write(g, file, true);
+            Grid read = WorldFile.read(file, 15);
+            assertEquals(Grid.Topology.TORUS, read.topology());
+            TestTileParallelEngine.assertSameWorld(g, read);
+
+            Snapshot.write(g, file);
+            assertEquals(Grid.Topology.TORUS, Snapshot.read(file).topology());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package huglife;
+
+import creatures.Clorus;
+import creatures.Plip;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests reading and writing .world files. */
+public class TestWorldFile {
+
+    private static Grid world() {
+        Grid g = new Grid(40);
+        for (int x = 0; x < 40; x++) {
+            g.placeOccupant(x, 39, WorldStore.IMPASSIBLE);
+        }
+        for (int x = 3; x < 20; x++) {
+            g.createCreature(x, 5, new Plip(x < 10 ? 1 : 0.37));
+        }
+        g.createCreature(0, 0, new Clorus(2.5));
+        g.createCreature(39, 0, new SampleCreature());
+        return g;
+    }
+
+    private static Grid roundTrip(Grid g, boolean runLength, long[] bytes)
+            throws IOException {
+        Path file = Files.createTempFile("huglife", ".world");
+        try {
+            WorldFile.write(g, file, runLength);
+            bytes[0] = Files.size(file);
+            return WorldFile.read(file, 15);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void read_shouldRestoreWrittenWorld() throws IOException {
+        Grid g = world();
+        long[] plain = new long[1];
+        long[] encoded = new long[1];
+        TestTileParallelEngine.assertSameWorld(g, roundTrip(g, false, plain));
+        Grid read = roundTrip(g, true, encoded);
+        TestTileParallelEngine.assertSameWorld(g, read);
+        assertEquals(40, read.size());
+        assertEquals(Occupant.Type.IMPASSABLE, read.getOccupant(20, 39).getType());
+        assertTrue(encoded[0] < plain[0] / 4);
+    }
+
+    @Test
+    public void read_shouldReadOriginalFormat() throws IOException {
+        Path file = Files.createTempFile("huglife", ".world");
+        try {
+            Files.writeString(file, "samplecreature 11 1\nplip 12 12\nunicorn 1 1\nclorus 2 2");
+            Grid g = WorldFile.read(file, 15);
+            assertEquals(15, g.size());
+            assertEquals(3, g.population());
+            assertEquals(Occupant.Type.CLORUS, g.getOccupant(2, 2).getType());
+            assertEquals(Occupant.Type.EMPTY, g.getOccupant(1, 1).getType());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void read_shouldUseRequestedStorage() throws IOException {
+        Grid g = world();
+        Path file = Files.createTempFile("huglife", ".world");
+        try {
+            WorldFile.write(g, file, true);
+            for (Grid.Storage storage : Grid.Storage.values()) {
+                Grid read = WorldFile.read(file, 15, storage);
+                assertEquals(storage, read.storage());
+                TestTileParallelEngine.assertSameWorld(g, read);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void write_shouldSaveHugeSparseWorlds() throws IOException {
+        Grid g = new Grid(Grid.MAX_SIZE, Grid.Storage.CHUNKED, 5);
+        g.createCreature(40000, 100, new Plip(0.5));
+        g.createCreature(40001, 100, new Plip(0.5));
+        g.createCreature(3, 30000, new Clorus(2));
+        Path file = Files.createTempFile("huglife", ".world");
+        try {
+            WorldFile.write(g, file, true);
+            Grid read = WorldFile.read(file, 15, Grid.Storage.CHUNKED);
+            assertEquals(3, read.population());
+            assertEquals(Occupant.Type.PLIP, read.getOccupant(40001, 100).getType());
+            assertEquals(Occupant.Type.CLORUS, read.getOccupant(3, 30000).getType());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
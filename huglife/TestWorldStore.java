@@ -0,0 +1,125 @@
+package huglife;
+
+import creatures.Clorus;
+import creatures.Plip;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/** Checks that both kinds of Grid storage simulate the same world. */
+public class TestWorldStore {
+
+    private static Grid populate(Grid.Storage storage) {
+        Grid g = new Grid(12, storage);
+        g.createCreature(1, 1, new SampleCreature());
+        g.createCreature(6, 6, new Plip());
+        g.createCreature(7, 6, new Plip(1.5));
+        g.createCreature(3, 9, new Plip());
+        g.createCreature(9, 2, new Clorus(1));
+        return g;
+    }
+
+    private static void run(Grid g, int cycles) {
+        int done = 0;
+        while (done < cycles) {
+            if (g.tic()) {
+                done += 1;
+            }
+        }
+    }
+
+    private static void assertSameAsObjectStorage(Grid.Storage storage) {
+        Grid object = populate(Grid.Storage.OBJECT);
+        Grid other = populate(storage);
+
+        object.setSeed(42);
+        run(object, 50);
+        other.setSeed(42);
+        run(other, 50);
+
+        for (int x = 0; x < 12; x++) {
+            for (int y = 0; y < 12; y++) {
+                Occupant a = object.getOccupant(x, y);
+                Occupant b = other.getOccupant(x, y);
+                assertEquals(a.getType(), b.getType());
+                if (a instanceof Creature) {
+                    assertEquals(((Creature) a).energy(),
+                                 ((Creature) b).energy(), 1e-12);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void packedStorage_shouldMatchObjectStorage() {
+        assertSameAsObjectStorage(Grid.Storage.PACKED);
+    }
+
+    @Test
+    public void chunkedStorage_shouldMatchObjectStorage() {
+        assertSameAsObjectStorage(Grid.Storage.CHUNKED);
+    }
+
+    @Test
+    public void packedStorage_shouldTrackEnergy() {
+        PackedWorldStore store = new PackedWorldStore(4);
+        Plip p = new Plip(1.0);
+        store.put(2, p);
+        assertEquals(Occupant.Type.PLIP, store.type(2));
+        p.stay();
+        assertEquals(1.0, store.energy(2), 1e-12);
+        store.refresh(2);
+        assertEquals(1.2, store.energy(2), 1e-12);
+        store.move(2, 3);
+        assertEquals(Occupant.Type.EMPTY, store.type(2));
+        assertEquals(1.2, store.energy(3), 1e-12);
+        store.clear(3);
+        assertEquals(0, store.energy(3), 0);
+    }
+
+    @Test
+    public void chunkedStorage_shouldAllocateOnlyOccupiedChunks() {
+        int n = Grid.MAX_SIZE;
+        ChunkedWorldStore store = new ChunkedWorldStore(n);
+        int far = (n - 1) * n + n - 1;
+        store.put(0, new Plip());
+        store.put(far, new Plip());
+        assertEquals(2, store.chunks());
+        assertEquals(Occupant.Type.EMPTY, store.type(n * 100 + 100));
+
+        store.move(0, 1);
+        assertEquals(2, store.chunks());
+        store.move(1, ChunkedWorldStore.SIDE);
+        assertEquals(2, store.chunks());
+        assertEquals(Occupant.Type.PLIP, store.type(ChunkedWorldStore.SIDE));
+        store.clear(ChunkedWorldStore.SIDE);
+        store.clear(far);
+        assertEquals(0, store.chunks());
+        assertEquals(Occupant.Type.EMPTY, store.type(far));
+    }
+
+    @Test
+    public void chunkedStorage_shouldRunHugeSparseWorlds() {
+        Grid g = new Grid(Grid.MAX_SIZE, Grid.Storage.CHUNKED, 7);
+        g.createCreature(20000, 20000, new Clorus(0.5));
+        g.createCreature(40000, 100, new Plip());
+        run(g, 100);
+        assertEquals(Occupant.Type.PLIP, g.getOccupant(40000, 100).getType());
+    }
+
+    @Test
+    public void chunkedStorage_shouldVisitOnlyOccupiedCells() {
+        int n = Grid.MAX_SIZE;
+        Grid g = new Grid(n, Grid.Storage.CHUNKED, 7);
+        g.createCreature(20000, 20000, new Clorus(0.5));
+        g.createCreature(40000, 100, new Plip());
+        g.createCreature(3, 100, new Plip());
+        assertArrayEquals(new int[] {100 * n + 3, 100 * n + 40000, 20000 * n + 20000},
+                          g.occupiedCells());
+        int[] counts = g.countTypes();
+        assertEquals(2, counts[Occupant.Type.PLIP.ordinal()]);
+        assertEquals(1, counts[Occupant.Type.CLORUS.ordinal()]);
+        assertEquals(n * n - 3, counts[Occupant.Type.EMPTY.ordinal()]);
+    }
+}
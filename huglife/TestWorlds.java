@@ -0,0 +1,33 @@
+package huglife;
+
+import creatures.Clorus;
+import creatures.Plip;
+
+/** Worlds shared by the tests, reproducible from their parameters. */
+final class TestWorlds {
+    private TestWorlds() {
+    }
+
+    /** Returns a world of size N with a creature on every DX-th column
+     *  of every DY-th row, cycling through Plips, Clorus and
+     *  SampleCreatures along the diagonals. */
+    static Grid lattice(int n, int dx, int dy, Grid.Storage storage,
+                        Grid.Topology topology, long seed) {
+        Grid g = new Grid(n, storage, topology, seed);
+        for (int x = 0; x < n; x += dx) {
+            for (int y = 0; y < n; y += dy) {
+                switch ((x + y) % 3) {
+                    case 0 -> g.createCreature(x, y, new Plip());
+                    case 1 -> g.createCreature(x, y, new Clorus(1));
+                    default -> g.createCreature(x, y, new SampleCreature());
+                }
+            }
+        }
+        return g;
+    }
+
+    /** Returns a bounded lattice world, see lattice. */
+    static Grid lattice(int n, int dx, int dy, Grid.Storage storage, long seed) {
+        return lattice(n, dx, dy, storage, Grid.Topology.BOUNDED, seed);
+    }
+}
@@ -0,0 +1,59 @@
+package huglife;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/** Flight recorder event for a slow Grid.tic, with the time spent in
+ *  each phase of it. Off by default; see huglife.jfc for turning it on.
+ *
+ *  The grid only creates these while the event is enabled in some
+ *  recording, so tics cost one flag check otherwise.
+ */
+@Name("huglife.Tic")
+@Label("Slow Tic")
+@Category("HugLife")
+@Description("A tic that took longer than the threshold, by phase")
+@Enabled(false)
+@Threshold("1 ms")
+final class TicEvent extends Event {
+    static final EventType TYPE = EventType.getEventType(TicEvent.class);
+
+    @Label("X")
+    int x;
+
+    @Label("Y")
+    int y;
+
+    @Label("Species")
+    String species;
+
+    @Label("Action")
+    String action;
+
+    @Label("Choose Action")
+    @Description("Time in the creature's chooseAction, including looking at its neighbors")
+    @Timespan
+    long choose;
+
+    @Label("Validation")
+    @Description("Time in creatureCheck and collisionCheck")
+    @Timespan
+    long validation;
+
+    @Label("Apply")
+    @Description("Time changing the world and the creature for the action")
+    @Timespan
+    long apply;
+
+    @Label("Queue")
+    @Description("Time taking the creature out of line and lining creatures up")
+    @Timespan
+    long queue;
+}
@@ -0,0 +1,203 @@
+package huglife;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/** Runs cycles on several threads by cutting the world into square
+ *  tiles.
+ *
+ *  Tiles are colored like a 2x2 checkerboard, and a cycle is four
+ *  phases, one per color. Two tiles of the same color are always at
+ *  least a whole tile apart, and a creature only ever looks at or
+ *  changes cells next to its own, so the tiles of one phase can run
+ *  concurrently without touching the same cells.
+ *
+ *  On a torus the first and last tiles of a row or column touch too.
+ *  A last tile of a single cell is merged into the one before it, and
+ *  if that leaves an odd number of tiles, the last one gets a color of
+ *  its own, so up to nine phases are needed.
+ *
+ *  Within a tile creatures act in row order, each at most once per
+ *  cycle, so a creature that moves into a tile of a later phase does
+ *  not act twice, and newborns wait for the next cycle like they do in
+ *  the move queue. Random streams are keyed off the world seed and the
+ *  cycle, and then either the tile, or with Keying.CELL the cell of the
+ *  acting creature, so that its draws don't depend on what the rest of
+ *  its tile did. Either way, results depend on the seed and tile size
+ *  but not on the number of threads.
+ *
+ *  This is a different schedule from the move queue, so results differ
+ *  from SequentialEngine. After every cycle the Grid's move queue is
+ *  rebuilt in row order, so both engines can be used on the same Grid.
+ */
+public class TileParallelEngine implements CycleEngine, AutoCloseable {
+    /** Default side of a tile, in cells. */
+    public static final int DEFAULT_TILE_SIZE = 32;
+
+    /** What a random stream belongs to, besides the world and cycle. */
+    public enum Keying {
+        /** One stream per tile, restarted for every tile. */
+        TILE,
+        /** One stream per cell, restarted for every cell. */
+        CELL
+    }
+
+    private final ForkJoinPool pool;
+    private final int tileSize;
+    private final Keying keying;
+
+    private final ThreadLocal<Grid.Scratch> scratch =
+            ThreadLocal.withInitial(Grid.Scratch::new);
+    private final ThreadLocal<SplitMix> random =
+            ThreadLocal.withInitial(() -> new SplitMix(0));
+
+    /** Creates an engine with THREADS workers, DEFAULT_TILE_SIZE tiles
+     *  and a random stream per tile. */
+    public TileParallelEngine(int threads) {
+        this(threads, DEFAULT_TILE_SIZE, Keying.TILE);
+    }
+
+    /** Creates an engine with THREADS workers, tiles of TILESIZE cells
+     *  on a side (at least 2) and random streams keyed by KEYING. */
+    public TileParallelEngine(int threads, int tileSize, Keying keying) {
+        if (tileSize < 2) {
+            throw new IllegalArgumentException("Tiles must be at least 2 "
+                             + "cells on a side, got " + tileSize);
+        }
+        this.pool = new ForkJoinPool(threads);
+        this.tileSize = tileSize;
+        this.keying = keying;
+    }
+
+    @Override
+    public void cycle(Grid g) {
+        Tiling t = new Tiling(g.size(), tileSize, g.topology() == Grid.Topology.TORUS);
+        long acted = 0;
+        g.beginParallelCycle();
+        try {
+            for (int cy = 0; cy < t.colors; cy++) {
+                for (int cx = 0; cx < t.colors; cx++) {
+                    int count = t.count(cx) * t.count(cy);
+                    if (count > 0) {
+                        acted += pool.invoke(new Phase(g, t, cx, cy, 0, count));
+                    }
+                }
+            }
+        } finally {
+            g.endParallelCycle(acted);
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /** How the rows, and likewise the columns, of a world are cut into
+     *  tiles and colored. */
+    private static final class Tiling {
+        final int n;
+        final int tileSize;
+        /** Number of tiles on a side. */
+        final int tiles;
+        /** 2, or 3 if the last tile has a color of its own. */
+        final int colors;
+
+        Tiling(int n, int tileSize, boolean wraps) {
+            int t = (n + tileSize - 1) / tileSize;
+            if (wraps && t > 1 && n - (t - 1) * tileSize < 2) {
+                t -= 1;
+            }
+            this.n = n;
+            this.tileSize = tileSize;
+            this.tiles = t;
+            this.colors = wraps && t > 1 && t % 2 == 1 ? 3 : 2;
+        }
+
+        /** Returns the number of tiles of color C on a side. */
+        int count(int c) {
+            if (colors == 2) {
+                return (tiles - c + 1) / 2;
+            }
+            return c == 2 ? 1 : (tiles - 1 - c + 1) / 2;
+        }
+
+        /** Returns the index of the Kth tile of color C. */
+        int index(int c, int k) {
+            return c == 2 ? tiles - 1 : k * 2 + c;
+        }
+
+        int start(int i) {
+            return i * tileSize;
+        }
+
+        int end(int i) {
+            return i == tiles - 1 ? n : (i + 1) * tileSize;
+        }
+    }
+
+    /** The tiles of colors CX, CY with index in [lo, hi), in row order.
+     *  Computes the number of creatures that acted. */
+    private final class Phase extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private final Grid g;
+        private final Tiling t;
+        private final int cx;
+        private final int cy;
+        private final int lo;
+        private final int hi;
+
+        Phase(Grid g, Tiling t, int cx, int cy, int lo, int hi) {
+            this.g = g;
+            this.t = t;
+            this.cx = cx;
+            this.cy = cy;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Long compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                Phase left = new Phase(g, t, cx, cy, lo, mid);
+                left.fork();
+                long right = new Phase(g, t, cx, cy, mid, hi).compute();
+                return left.join() + right;
+            }
+            int columns = t.count(cx);
+            int tx = t.index(cx, lo % columns);
+            int ty = t.index(cy, lo / columns);
+            return runTile(g, t, tx, ty);
+        }
+    }
+
+    /** Lets every creature of tile TX, TY of T act, in row order.
+     *  Returns the number of creatures that acted. */
+    private long runTile(Grid g, Tiling t, int tx, int ty) {
+        long acted = 0;
+        int n = g.size();
+        long cycleSeed = RandomStreams.seed(g.seed(), g.cycleStamp());
+        SplitMix r = random.get();
+        r.setSeed(RandomStreams.seed(cycleSeed, ty, tx));
+        SplitMix previous = RandomStreams.use(r);
+        try {
+            Grid.Scratch s = scratch.get();
+            int xEnd = t.end(tx);
+            int yEnd = t.end(ty);
+            for (int y = t.start(ty); y < yEnd; y++) {
+                for (int x = t.start(tx); x < xEnd; x++) {
+                    if (keying == Keying.CELL) {
+                        r.setSeed(RandomStreams.seed(cycleSeed, (long) y * n + x));
+                    }
+                    if (g.act(x, y, s)) {
+                        acted += 1;
+                    }
+                }
+            }
+        } finally {
+            RandomStreams.use(previous);
+        }
+        return acted;
+    }
+}
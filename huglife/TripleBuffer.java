@@ -0,0 +1,53 @@
+package huglife;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Lock-free handoff of the newest of a stream of values from one
+ *  writer thread to one reader thread.
+ *
+ *  Three buffers rotate between the writer (back), a shared middle slot
+ *  and the reader (front). Publishing swaps back and middle, taking
+ *  swaps middle and front, so neither side ever waits for the other.
+ *  If the reader falls behind, values it never took are simply
+ *  overwritten.
+ */
+final class TripleBuffer<T> {
+    /** Set in middle when it holds a value the reader hasn't taken. */
+    private static final int FRESH = 4;
+    private static final int INDEX = 3;
+
+    private final Object[] buffers;
+    /** Index of the middle buffer, plus FRESH. */
+    private final AtomicInteger middle = new AtomicInteger(1);
+    /** Owned by the writer. */
+    private int back = 0;
+    /** Owned by the reader. */
+    private int front = 2;
+
+    TripleBuffer(T a, T b, T c) {
+        buffers = new Object[] {a, b, c};
+    }
+
+    /** Returns the buffer the writer may fill. */
+    @SuppressWarnings("unchecked")
+    T back() {
+        return (T) buffers[back];
+    }
+
+    /** Publishes the back buffer and gets a new one to fill. */
+    void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX;
+    }
+
+    /** Returns the newest published buffer, or null if nothing was
+     *  published since the last call. The reader may use it until it
+     *  calls take again. */
+    @SuppressWarnings("unchecked")
+    T take() {
+        if ((middle.get() & FRESH) == 0) {
+            return null;
+        }
+        front = middle.getAndSet(front) & INDEX;
+        return (T) buffers[front];
+    }
+}
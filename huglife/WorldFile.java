@@ -0,0 +1,276 @@
+package huglife;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Reads and writes worlds as .world text files.
+ *
+ *  A file starts with a header that gives the format version, the size
+ *  of the world and the table of species used, followed by one line
+ *  per run of identical occupants in a row. Empty cells are not written
+ *  at all, so files grow with the population, not with the area:
+ *
+ *  <pre>
+ *  huglife 2
+ *  size 15
+ *  species 2 plip clorus
+ *  x y length species energy
+ *  </pre>
+ *
+ *  A "topology torus" line may follow the size, for worlds whose edges
+ *  wrap around.
+ *
+ *  Each line covers LENGTH cells to the right of X, Y, all with the
+ *  same species (an index into the table) and energy. Without run
+ *  length encoding, every length is 1.
+ *
+ *  Files without a header are read in the original format, one
+ *  "species x y" line per creature with default energy, into a world
+ *  of a given size.
+ */
+public final class WorldFile {
+    /** Version of the format that write produces. */
+    static final int VERSION = 2;
+    private static final byte[][] MAGIC = {ascii("huglife")};
+    private static final byte[][] TOPOLOGY = {ascii("topology")};
+    private static final Grid.Topology[] TOPOLOGIES = Grid.Topology.values();
+    /** Topology names, by ordinal. */
+    private static final byte[][] TOPOLOGY_NAMES = new byte[TOPOLOGIES.length][];
+    private static final Occupant.Type[] TYPES = Occupant.Type.values();
+    /** Species names in the original format, by type ordinal. */
+    private static final byte[][] NAMES = new byte[TYPES.length][];
+    /** Files are read in chunks of about this many bytes, in parallel. */
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    static {
+        for (Occupant.Type t : TYPES) {
+            NAMES[t.ordinal()] = ascii(Species.name(t));
+        }
+        for (Grid.Topology t : TOPOLOGIES) {
+            TOPOLOGY_NAMES[t.ordinal()] = ascii(t.name().toLowerCase());
+        }
+    }
+
+    private WorldFile() {
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** Writes every non-empty cell of G to FILE, merging runs of equal
+     *  occupants within a row into one line if RUNLENGTH is true. Only
+     *  looks at the occupied cells. */
+    public static void write(Grid g, Path file, boolean runLength) throws IOException {
+        int n = g.size();
+        int[] cells = g.occupiedCells();
+        Occupant[] occupants = new Occupant[cells.length];
+        int[] table = new int[TYPES.length];
+        Arrays.fill(table, -1);
+        List<Occupant.Type> species = new ArrayList<>();
+        for (int i = 0; i < cells.length; i++) {
+            occupants[i] = g.getOccupant(cells[i] % n, cells[i] / n);
+            Occupant.Type t = occupants[i].getType();
+            if (table[t.ordinal()] < 0) {
+                table[t.ordinal()] = species.size();
+                species.add(t);
+            }
+        }
+
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            out.write("huglife " + VERSION + "\nsize " + n + "\n");
+            if (g.topology() != Grid.Topology.BOUNDED) {
+                out.write("topology " + g.topology().name().toLowerCase() + "\n");
+            }
+            out.write("species " + species.size());
+            for (Occupant.Type t : species) {
+                out.write(' ');
+                out.write(Species.name(t));
+            }
+            out.write('\n');
+
+            // Cells come in row order, so a run is a stretch of
+            // consecutive cell ids that doesn't wrap to the next row.
+            StringBuilder line = new StringBuilder();
+            int i = 0;
+            while (i < cells.length) {
+                Occupant o = occupants[i];
+                int x = cells[i] % n;
+                int y = cells[i] / n;
+                double energy = energy(o);
+                int length = 1;
+                while (runLength && i + length < cells.length && x + length < n
+                       && cells[i + length] == cells[i] + length
+                       && sameLook(o, energy, occupants[i + length])) {
+                    length += 1;
+                }
+                line.setLength(0);
+                line.append(x).append(' ').append(y).append(' ').append(length)
+                    .append(' ').append(table[o.getType().ordinal()]).append(' ');
+                if (energy == (long) energy) {
+                    line.append((long) energy);
+                } else {
+                    line.append(energy);
+                }
+                out.append(line).append('\n');
+                i += length;
+            }
+        }
+    }
+
+    private static double energy(Occupant o) {
+        return o instanceof Creature c ? c.energy() : 0;
+    }
+
+    private static boolean sameLook(Occupant o, double energy, Occupant other) {
+        return other.getType() == o.getType() && energy(other) == energy;
+    }
+
+    /** Reads the world in FILE into OBJECT storage. Files in the
+     *  original format, which doesn't record a size, are read into a
+     *  world of size LEGACYSIZE. */
+    public static Grid read(Path file, int legacySize) throws IOException {
+        return read(file, legacySize, Grid.Storage.OBJECT);
+    }
+
+    /** Reads the world in FILE as read(FILE, LEGACYSIZE) does, into a
+     *  Grid using STORAGE. */
+    public static Grid read(Path file, int legacySize, Grid.Storage storage)
+            throws IOException {
+        ByteTokenizer in = ByteTokenizer.map(file);
+        if (in.isEmpty() || in.peekWord(MAGIC) < 0) {
+            return readLegacy(in, legacySize, storage);
+        }
+        in.readWord(MAGIC);
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException(String.format("%s has .world version %d, "
+                                  + "expected %d.", file, version, VERSION));
+        }
+        expect(in, "size", file);
+        int n = in.readInt();
+        Grid.Topology topology = Grid.Topology.BOUNDED;
+        if (in.peekWord(TOPOLOGY) >= 0) {
+            in.readWord(TOPOLOGY);
+            int t = in.readWord(TOPOLOGY_NAMES);
+            if (t < 0) {
+                throw new IOException(file + " has an unknown topology.");
+            }
+            topology = TOPOLOGIES[t];
+        }
+        expect(in, "species", file);
+        Occupant.Type[] species = new Occupant.Type[in.readInt()];
+        for (int i = 0; i < species.length; i++) {
+            String name = in.readString();
+            species[i] = Species.byName(name);
+            if (species[i] == null || species[i] == Occupant.Type.EMPTY) {
+                throw new IOException(file + " has unknown species " + name);
+            }
+        }
+
+        Runs[] chunks = in.split(CHUNK_BYTES).parallelStream()
+                          .map(Runs::read).toArray(Runs[]::new);
+        Grid g = new Grid(n, storage, topology, RandomStreams.newSeed());
+        for (Runs runs : chunks) {
+            for (int i = 0; i < runs.size; i++) {
+                Occupant.Type t = species[runs.species[i]];
+                int x = runs.xs[i];
+                int y = runs.ys[i];
+                for (int k = 0; k < runs.lengths[i]; k++) {
+                    place(g, x + k, y, Species.create(t, runs.energies[i]));
+                }
+            }
+        }
+        return g;
+    }
+
+    private static void expect(ByteTokenizer in, String word, Path file)
+            throws IOException {
+        if (in.readWord(new byte[][] {ascii(word)}) < 0) {
+            throw new IOException(file + " is missing '" + word + "' in its header.");
+        }
+    }
+
+    private static void place(Grid g, int x, int y, Occupant o) {
+        if (o instanceof Creature c) {
+            g.createCreature(x, y, c);
+        } else {
+            g.placeOccupant(x, y, o);
+        }
+    }
+
+    /** Reads "species x y" lines into a world of size N using STORAGE.
+     *  Lines of unknown species are skipped. */
+    private static Grid readLegacy(ByteTokenizer in, int n, Grid.Storage storage) {
+        int[][] chunks = in.split(CHUNK_BYTES).parallelStream()
+                           .map(WorldFile::readLegacyLines).toArray(int[][]::new);
+        Grid g = new Grid(n, storage);
+        // Creatures get in line in file order, whatever the chunking.
+        for (int[] creatures : chunks) {
+            for (int i = 0; i < creatures.length; i += 3) {
+                Occupant o = Species.create(TYPES[creatures[i]], 1);
+                place(g, creatures[i + 1], creatures[i + 2], o);
+            }
+        }
+        return g;
+    }
+
+    /** Returns the type ordinal, x and y of each line, one after the
+     *  other. */
+    private static int[] readLegacyLines(ByteTokenizer in) {
+        int[] creatures = new int[48];
+        int size = 0;
+        while (!in.isEmpty()) {
+            int type = in.readWord(NAMES);
+            int x = in.readInt();
+            int y = in.readInt();
+            if (type < 0 || TYPES[type] == Occupant.Type.EMPTY) {
+                continue;
+            }
+            if (size == creatures.length) {
+                creatures = Arrays.copyOf(creatures, size * 2);
+            }
+            creatures[size++] = type;
+            creatures[size++] = x;
+            creatures[size++] = y;
+        }
+        return Arrays.copyOf(creatures, size);
+    }
+
+    /** The run lines of one chunk of a file. */
+    private static final class Runs {
+        int size;
+        int[] xs = new int[16];
+        int[] ys = new int[16];
+        int[] lengths = new int[16];
+        int[] species = new int[16];
+        double[] energies = new double[16];
+
+        static Runs read(ByteTokenizer in) {
+            Runs r = new Runs();
+            while (!in.isEmpty()) {
+                if (r.size == r.xs.length) {
+                    int capacity = r.size * 2;
+                    r.xs = Arrays.copyOf(r.xs, capacity);
+                    r.ys = Arrays.copyOf(r.ys, capacity);
+                    r.lengths = Arrays.copyOf(r.lengths, capacity);
+                    r.species = Arrays.copyOf(r.species, capacity);
+                    r.energies = Arrays.copyOf(r.energies, capacity);
+                }
+                r.xs[r.size] = in.readInt();
+                r.ys[r.size] = in.readInt();
+                r.lengths[r.size] = in.readInt();
+                r.species[r.size] = in.readInt();
+                r.energies[r.size] = in.readDouble();
+                r.size += 1;
+            }
+            return r;
+        }
+    }
+}
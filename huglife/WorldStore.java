@@ -0,0 +1,63 @@
+package huglife;
+
+import java.util.function.IntConsumer;
+
+/** Storage for the occupants of a Grid, addressed by packed cell id
+ *  (see Grid). Only in bounds cells are ever passed in; the Grid takes
+ *  care of edges and of checking that operations are legal.
+ */
+interface WorldStore {
+    /** Shared by every empty cell. Empty has no state of its own. */
+    Empty EMPTY = new Empty();
+    /** Shared by every wall, including the ones beyond the edge. */
+    Impassible IMPASSIBLE = new Impassible();
+
+    /** Returns the occupant of CELL. */
+    Occupant get(int cell);
+
+    /** Returns the type of the occupant of CELL. Cheaper than
+     *  get(cell).getType() for stores that keep types apart. */
+    Occupant.Type type(int cell);
+
+    /** Returns the energy of the creature in CELL, 0 if there is none. */
+    double energy(int cell);
+
+    /** Puts O into CELL, replacing whatever was there. */
+    void put(int cell, Occupant o);
+
+    /** Makes CELL empty. */
+    void clear(int cell);
+
+    /** Moves the occupant of FROM into the empty cell TO. */
+    void move(int from, int to);
+
+    /** Called after the creature in CELL may have changed its energy. */
+    void refresh(int cell);
+
+    /** Prepares for EXTRA more creatures to be put in, from several
+     *  threads at once as long as each thread works on its own cells. */
+    default void reserve(int extra) {
+    }
+
+    /** Calls VISITOR with every cell below CELLS that isn't empty, in
+     *  no particular order. The default looks at every such cell;
+     *  sparse stores only walk what they have allocated. */
+    default void forEachOccupied(int cells, IntConsumer visitor) {
+        for (int c = 0; c < cells; c++) {
+            if (type(c) != Occupant.Type.EMPTY) {
+                visitor.accept(c);
+            }
+        }
+    }
+
+    /** Returns false if the store can't be used by several threads at
+     *  once, even on separate cells. */
+    default boolean concurrent() {
+        return true;
+    }
+
+    /** Returns true if T is the type of a living thing. */
+    static boolean isCreature(Occupant.Type t) {
+        return t != Occupant.Type.EMPTY && t != Occupant.Type.IMPASSABLE;
+    }
+}